@@ -3,11 +3,14 @@ package dev.ftb.mods.sluice;
 import dev.ftb.mods.sluice.block.SluiceBlockEntities;
 import dev.ftb.mods.sluice.block.SluiceBlocks;
 import dev.ftb.mods.sluice.block.sluice.SluiceBlockContainer;
+import dev.ftb.mods.sluice.block.sluice.SluiceScheduler;
+import dev.ftb.mods.sluice.block.sluice.UpgradeProfile;
 import dev.ftb.mods.sluice.integration.TheOneProbeProvider;
 import dev.ftb.mods.sluice.item.SluiceModItems;
 import dev.ftb.mods.sluice.loot.HammerModifier;
 import dev.ftb.mods.sluice.recipe.FTBSluiceRecipes;
 import dev.ftb.mods.sluice.util.RecipeReloader;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.inventory.MenuType;
 import net.minecraft.world.item.CreativeModeTab;
 import net.minecraft.world.item.ItemStack;
@@ -19,6 +22,8 @@ import net.minecraftforge.common.MinecraftForge;
 import net.minecraftforge.common.extensions.IForgeContainerType;
 import net.minecraftforge.common.loot.GlobalLootModifierSerializer;
 import net.minecraftforge.event.AddReloadListenerEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.eventbus.api.IEventBus;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.InterModComms;
@@ -69,6 +74,7 @@ public class FTBSluice {
 
         bus.addListener(this::clientSetup);
         bus.addListener(this::sendIMC);
+        bus.addListener(this::configReloaded);
 
         MinecraftForge.EVENT_BUS.register(this);
     }
@@ -82,10 +88,30 @@ public class FTBSluice {
         event.addListener(new RecipeReloader(event.getDataPackRegistries()));
     }
 
+    @SubscribeEvent
+    public void worldTick(TickEvent.WorldTickEvent event) {
+        if (event.phase == TickEvent.Phase.END && event.world instanceof ServerLevel) {
+            SluiceScheduler.tick((ServerLevel) event.world);
+        }
+    }
+
+    @SubscribeEvent
+    public void worldUnload(WorldEvent.Unload event) {
+        if (event.getWorld() instanceof ServerLevel) {
+            SluiceScheduler.unload((ServerLevel) event.getWorld());
+        }
+    }
+
     @SubscribeEvent
     public void recipesSetup(RecipesUpdatedEvent event) {
         RecipeManager recipeManager = event.getRecipeManager();
-        FTBSluiceRecipes.refreshCaches(recipeManager);
+        FTBSluiceRecipes.refreshCaches(recipeManager, true);
+    }
+
+    private void configReloaded(ModConfig.Reloading event) {
+        if (event.getConfig().getSpec() == SluiceConfig.COMMON_CONFIG) {
+            UpgradeProfile.invalidateAll();
+        }
     }
 
     public void sendIMC(InterModEnqueueEvent event) {
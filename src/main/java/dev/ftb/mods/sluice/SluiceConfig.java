@@ -7,6 +7,7 @@ public class SluiceConfig {
     public static final ForgeConfigSpec COMMON_CONFIG;
 
     public static final CategoryGeneral GENERAL = new CategoryGeneral();
+    public static final CategoryPerformance PERFORMANCE = new CategoryPerformance();
     public static final CategorySluices SLUICES = new CategorySluices();
 
     static {
@@ -32,6 +33,55 @@ public class SluiceConfig {
         }
     }
 
+    public static class CategoryPerformance {
+        public final ForgeConfigSpec.IntValue maxUpdatesPerTick;
+        public final ForgeConfigSpec.IntValue maxMicrosPerTick;
+        public final ForgeConfigSpec.BooleanValue adaptiveThrottling;
+        public final ForgeConfigSpec.DoubleValue throttleMspt;
+        public final ForgeConfigSpec.DoubleValue maxThrottleFactor;
+        public final ForgeConfigSpec.BooleanValue offlineCatchUp;
+        public final ForgeConfigSpec.IntValue outputFlushInterval;
+        public final ForgeConfigSpec.IntValue maxDropEntities;
+
+        public CategoryPerformance() {
+            COMMON_BUILDER.push("performance");
+
+            this.maxUpdatesPerTick = COMMON_BUILDER
+                    .comment("Max amount of sluice updates (finished cycles and woken up sluices) handled per tick in each world. Anything over the budget is deferred to the next ticks in order. 0 disables the limit")
+                    .defineInRange("max updates per tick", 0, 0, 1000000);
+
+            this.maxMicrosPerTick = COMMON_BUILDER
+                    .comment("Max amount of time in microseconds spent on sluice updates per tick in each world. Anything over the budget is deferred to the next ticks in order. 0 disables the limit")
+                    .defineInRange("max micros per tick", 0, 0, 50000);
+
+            this.adaptiveThrottling = COMMON_BUILDER
+                    .comment("When enabled, sluices take longer to process resources while the server's average tick time is above the threshold below, and go back to normal once it recovers")
+                    .define("adaptive throttling", false);
+
+            this.throttleMspt = COMMON_BUILDER
+                    .comment("Average tick time (in milliseconds) above which sluices start slowing down")
+                    .defineInRange("throttle mspt threshold", 45D, 1D, 1000D);
+
+            this.maxThrottleFactor = COMMON_BUILDER
+                    .comment("The most processing times can be stretched by while throttling (2 means sluices can take at most twice as long)")
+                    .defineInRange("max throttle factor", 4D, 1D, 100D);
+
+            this.offlineCatchUp = COMMON_BUILDER
+                    .comment("When enabled, sluices in chunks that were unloaded catch up on the cycles they missed once the chunk loads again (limited by their input, fluid and energy), so they don't need to be chunk loaded")
+                    .define("offline catch up", false);
+
+            this.outputFlushInterval = COMMON_BUILDER
+                    .comment("How many ticks sluices collect their results for before pushing them out in one go. A full buffer is always pushed out straight away")
+                    .defineInRange("output flush interval", 20, 1, 1200);
+
+            this.maxDropEntities = COMMON_BUILDER
+                    .comment("Max amount of dropped item entities a sluice keeps in front of it. Matching drops are always merged up to a full stack. Once reached, anything that can't be merged stays in the sluice, which stops processing until the drops are picked up or despawn. 0 disables the limit")
+                    .defineInRange("max drop entities", 8, 0, 256);
+
+            COMMON_BUILDER.pop();
+        }
+    }
+
     public static class CategorySluices {
 
         public final CategorySluice OAK, IRON, DIAMOND;
@@ -40,10 +90,10 @@ public class SluiceConfig {
         public CategorySluices() {
             COMMON_BUILDER.push("sluices");
 
-            OAK = new CategorySluice("oak", 1, 1, 12000);
-            IRON = new CategorySluice("iron", .8, .6, 12000);
-            DIAMOND = new CategorySluice("diamond", .6, .75, 12000);
-            NETHERITE = new CategoryNetheriteSluice("netherite", .4, .5, 12000);
+            OAK = new CategorySluice("oak", 1, 1, 12000, 1, false);
+            IRON = new CategorySluice("iron", .8, .6, 12000, 1, false);
+            DIAMOND = new CategorySluice("diamond", .6, .75, 12000, 64, false);
+            NETHERITE = new CategoryNetheriteSluice("netherite", .4, .5, 12000, 64, false);
         }
     }
 
@@ -52,8 +102,10 @@ public class SluiceConfig {
         public final ForgeConfigSpec.DoubleValue timeMod;
         public final ForgeConfigSpec.DoubleValue fluidMod;
         public final ForgeConfigSpec.IntValue tankCap;
+        public final ForgeConfigSpec.IntValue inputBufferSize;
+        public final ForgeConfigSpec.BooleanValue backpressure;
 
-        public CategorySluice(String name, double timeMod, double fluidMod, int tankCap) {
+        public CategorySluice(String name, double timeMod, double fluidMod, int tankCap, int inputBufferSize, boolean backpressure) {
             COMMON_BUILDER.push(name);
 
             this.timeMod = COMMON_BUILDER
@@ -68,6 +120,14 @@ public class SluiceConfig {
                     .comment("Sets how much fluid this sluice's tank can carry (in mB)")
                     .defineInRange("tank capacity", tankCap, 0, 1000000);
 
+            this.inputBufferSize = COMMON_BUILDER
+                    .comment("Sets how many input items this sluice can hold at once, the next item is pulled in as soon as a cycle finishes")
+                    .defineInRange("input buffer size", inputBufferSize, 1, 64);
+
+            this.backpressure = COMMON_BUILDER
+                    .comment("When enabled, this sluice keeps its results instead of dropping them when the inventory it outputs to is full, and pauses (without using fluid or power) until there's room again")
+                    .define("backpressure", backpressure);
+
             addOtherValues();
 
             COMMON_BUILDER.pop();
@@ -79,9 +139,10 @@ public class SluiceConfig {
 
     public static class CategoryNetheriteSluice extends CategorySluice {
         public ForgeConfigSpec.IntValue costPerUse;
+        public ForgeConfigSpec.BooleanValue overclocking;
 
-        public CategoryNetheriteSluice(String name, double timeMod, double fluidMod, int tankCap) {
-            super(name, timeMod, fluidMod, tankCap);
+        public CategoryNetheriteSluice(String name, double timeMod, double fluidMod, int tankCap, int inputBufferSize, boolean backpressure) {
+            super(name, timeMod, fluidMod, tankCap, inputBufferSize, backpressure);
         }
 
         @Override
@@ -89,6 +150,10 @@ public class SluiceConfig {
             this.costPerUse = COMMON_BUILDER
                     .comment("FE cost per use")
                     .defineInRange("fe cost per use", 40, 0, 1000);
+
+            this.overclocking = COMMON_BUILDER
+                    .comment("When enabled, a sluice fast enough to process a resource in under a tick runs several cycles per tick instead. Every extra cycle per tick multiplies the power cost by the exponential cost base N")
+                    .define("allow overclocking", false);
         }
     }
 }
@@ -112,6 +112,7 @@ public class SluiceDataGen {
             this.addItem(SluiceModItems.FORTUNE_UPGRADE, "Fortune Upgrade");
             this.addItem(SluiceModItems.CONSUMPTION_UPGRADE, "Consumption Upgrade");
             this.addItem(SluiceModItems.SPEED_UPGRADE, "Speed Upgrade");
+            this.addItem(SluiceModItems.PARALLEL_UPGRADE, "Parallel Upgrade");
 
             this.add("death.attack.static_electric", "%1$s was killed by static electricity!");
 
@@ -126,6 +127,7 @@ public class SluiceDataGen {
             this.add("ftbsluice.tooltip.upgrade_fortune", "Increases drop chance by 3% per upgrade");
             this.add("ftbsluice.tooltip.upgrade_speed", "Increases the speed of the sluice by 5% per upgrade");
             this.add("ftbsluice.tooltip.upgrade_fluid", "Reduces the fluid cost by 5% per upgrade.");
+            this.add("ftbsluice.tooltip.upgrade_parallel", "Processes one more item per cycle per upgrade, using as much more fluid and power");
             this.add("ftbsluice.tooltip.upgrade_meta", "Each upgrade increase the power cost exponentially: base cost + (%s ^ upgrades)");
 
             this.add("ftbsluice.tooltip.damaged_canteen", "Hmm, looks broken, maybe good for emptying my sluice?");
@@ -135,6 +137,7 @@ public class SluiceDataGen {
 
             this.add(MODID + ".jei.processingTime", "Processing Time: %s ticks");
             this.add(MODID + ".jei.fluidUsage", "Uses %smB of Fluid");
+            this.add(MODID + ".jei.chance", "Chance: %s");
             this.add(MODID + ".properties.processing_time", "Processing Time: %sx");
             this.add(MODID + ".properties.fluid_usage", "Fluid Usage Multiplier: %sx");
             this.add(MODID + ".properties.tank", "Can hold %s mB of Fluid");
@@ -230,6 +233,7 @@ public class SluiceDataGen {
             this.simpleItem(SluiceModItems.FORTUNE_UPGRADE);
             this.simpleItem(SluiceModItems.CONSUMPTION_UPGRADE);
             this.simpleItem(SluiceModItems.SPEED_UPGRADE);
+            this.simpleItem(SluiceModItems.PARALLEL_UPGRADE);
         }
 
         private void simpleItem(Supplier<Item> item) {
@@ -409,6 +413,15 @@ public class SluiceDataGen {
                     .define('I', Tags.Items.INGOTS_IRON)
                     .define('E', Tags.Items.GEMS_EMERALD)
                     .save(consumer);
+
+            ShapedRecipeBuilder.shaped(SluiceModItems.PARALLEL_UPGRADE.get())
+                    .unlockedBy("has_item", has(Items.HOPPER))
+                    .pattern("III")
+                    .pattern("IHI")
+                    .pattern("III")
+                    .define('I', Tags.Items.INGOTS_IRON)
+                    .define('H', Items.HOPPER)
+                    .save(consumer);
         }
 
         private void hammer(ItemLike output, Tag<Item> head, Consumer<FinishedRecipe> consumer) {
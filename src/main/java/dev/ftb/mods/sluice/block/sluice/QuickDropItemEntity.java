@@ -5,11 +5,46 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
 
 public class QuickDropItemEntity extends ItemEntity {
+    // ItemEntity#age isn't visible to us, so we keep our own count to extend the lifespan from
+    private int ticksAlive;
+
     public QuickDropItemEntity(Level level, double x, double y, double z, ItemStack stack, int lifespan) {
         super(level, x, y, z, stack);
 
         this.lifespan = lifespan;
     }
 
+    @Override
+    public void tick() {
+        super.tick();
+        this.ticksAlive++;
+    }
+
+    /**
+     * Merges as much of the stack as possible into this entity, up to the item's max stack size, and gives it a fresh
+     * lifespan. Never goes past the max stack size as hoppers and players can't pick up more than that in one go.
+     *
+     * @return whatever couldn't be merged
+     */
+    public ItemStack merge(ItemStack stack, int lifespan) {
+        ItemStack current = this.getItem();
+        if (!this.isAlive() || !ItemStack.isSame(current, stack) || !ItemStack.tagMatches(current, stack)) {
+            return stack;
+        }
 
+        int room = current.getMaxStackSize() - current.getCount();
+        int moved = Math.min(room, stack.getCount());
+        if (moved <= 0) {
+            return stack;
+        }
+
+        ItemStack merged = current.copy();
+        merged.grow(moved);
+        this.setItem(merged);
+        this.lifespan = this.ticksAlive + lifespan;
+
+        ItemStack remaining = stack.copy();
+        remaining.shrink(moved);
+        return remaining;
+    }
 }
@@ -166,7 +166,7 @@ public class SluiceBlock extends Block {
                     ItemHandlerHelper.giveItemToPlayer(player, current);
                 }
 
-                sluice.clearCache();
+                sluice.wake();
             }
 
             return InteractionResult.SUCCESS;
@@ -182,7 +182,7 @@ public class SluiceBlock extends Block {
                     }
                 }
 
-                sluice.clearCache();
+                sluice.wake();
             }
 
             return InteractionResult.SUCCESS;
@@ -190,13 +190,11 @@ public class SluiceBlock extends Block {
             if (!world.isClientSide()) {
                 FluidUtil.interactWithFluidHandler(player, hand, sluice.tank);
             }
-        } else if (FTBSluiceRecipes.itemIsSluiceInput(state.getValue(MESH), itemStack)) {
+        } else if (FTBSluiceRecipes.itemIsSluiceInput(world, state.getValue(MESH), itemStack)) {
             if (!world.isClientSide()) {
-                if (sluice.inventory.getStackInSlot(0).isEmpty()) {
-                    sluice.clearCache();
-                    ItemStack copy = itemStack.copy();
-                    copy.setCount(1);
-                    sluice.inventory.internalInsert(0, copy, false);
+                ItemStack copy = itemStack.copy();
+                copy.setCount(1);
+                if (sluice.inventory.internalInsert(0, copy, false).isEmpty()) {
                     itemStack.shrink(1);
                 }
             }
@@ -227,6 +225,23 @@ public class SluiceBlock extends Block {
         return super.updateShape(state, facing, facingState, world, pos, facingPos);
     }
 
+    @Override
+    @Deprecated
+    public void neighborChanged(BlockState state, Level world, BlockPos pos, Block block, BlockPos fromPos, boolean isMoving) {
+        super.neighborChanged(state, world, pos, block, fromPos, isMoving);
+
+        // The output target sits right in front of the funnel, so let the sluice know it might have changed
+        if (!world.isClientSide() && state.getValue(PART) == Part.FUNNEL) {
+            Direction direction = state.getValue(BlockStateProperties.HORIZONTAL_FACING);
+            if (fromPos.equals(pos.relative(direction))) {
+                BlockEntity tileEntity = world.getBlockEntity(pos.relative(direction.getOpposite()));
+                if (tileEntity instanceof SluiceBlockEntity) {
+                    ((SluiceBlockEntity) tileEntity).invalidateOutputTarget();
+                }
+            }
+        }
+    }
+
     @Override
     @Deprecated
     public void onRemove(BlockState state, Level world, BlockPos pos, BlockState newState, boolean isMoving) {
@@ -254,6 +269,13 @@ public class SluiceBlock extends Block {
                     for (int i = 0; i < sluice.upgradeInventory.getSlots(); i++) {
                         popResource(world, pos, sluice.upgradeInventory.getStackInSlot(i));
                     }
+
+                    // And anything still waiting to be ejected
+                    for (int i = 0; i < sluice.outputBuffer.getSlots(); i++) {
+                        popResource(world, pos, sluice.outputBuffer.getStackInSlot(i));
+                    }
+
+                    sluice.outputOverflow.forEach(stack -> popResource(world, pos, stack));
                 }
 
                 world.removeBlock(endPos, false);
@@ -30,7 +30,7 @@ public class SluiceBlockContainer extends AbstractContainerMenu {
 
         // Yonk (Hopper)
         int n;
-        for(n = 0; n < 3; ++n) {
+        for(n = 0; n < SluiceBlockEntity.UPGRADE_SLOTS; ++n) {
             addSlot(new SlotItemHandler(handler, n, 62 + n * 18, 20));
         }
 
@@ -58,11 +58,11 @@ public class SluiceBlockContainer extends AbstractContainerMenu {
             ItemStack cur = slot.getItem();
             stack = cur.copy();
 
-            if (index < 3) {
-                if (!this.moveItemStackTo(cur, 3, this.slots.size(), true)) {
+            if (index < SluiceBlockEntity.UPGRADE_SLOTS) {
+                if (!this.moveItemStackTo(cur, SluiceBlockEntity.UPGRADE_SLOTS, this.slots.size(), true)) {
                     return ItemStack.EMPTY;
                 }
-            } else if (!(stack.getItem() instanceof UpgradeItem && this.moveItemStackTo(cur, 0, 3, false))) {
+            } else if (!(stack.getItem() instanceof UpgradeItem && this.moveItemStackTo(cur, 0, SluiceBlockEntity.UPGRADE_SLOTS, false))) {
                 return ItemStack.EMPTY;
             }
 
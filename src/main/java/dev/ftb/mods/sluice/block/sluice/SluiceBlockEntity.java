@@ -9,17 +9,19 @@ import dev.ftb.mods.sluice.capabilities.ItemsHandler;
 import dev.ftb.mods.sluice.item.UpgradeItem;
 import dev.ftb.mods.sluice.item.Upgrades;
 import dev.ftb.mods.sluice.recipe.FTBSluiceRecipes;
-import dev.ftb.mods.sluice.recipe.ItemWithWeight;
 import dev.ftb.mods.sluice.recipe.SluiceRecipeInfo;
 import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Direction;
 import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
 import net.minecraft.network.Connection;
 import net.minecraft.network.chat.Component;
 import net.minecraft.network.chat.TextComponent;
 import net.minecraft.network.protocol.game.ClientboundBlockEntityDataPacket;
+import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.util.Mth;
 import net.minecraft.world.MenuProvider;
 import net.minecraft.world.entity.player.Inventory;
@@ -29,16 +31,18 @@ import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.block.entity.BlockEntityType;
-import net.minecraft.world.level.block.entity.TickableBlockEntity;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.block.state.properties.BlockStateProperties;
+import net.minecraft.world.level.material.Fluid;
 import net.minecraft.world.phys.AABB;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.common.util.LazyOptional;
+import net.minecraftforge.common.util.NonNullConsumer;
 import net.minecraftforge.energy.CapabilityEnergy;
+import net.minecraftforge.fluids.FluidStack;
 import net.minecraftforge.fluids.capability.CapabilityFluidHandler;
 import net.minecraftforge.fluids.capability.IFluidHandler;
 import net.minecraftforge.items.CapabilityItemHandler;
@@ -46,15 +50,17 @@ import net.minecraftforge.items.IItemHandler;
 import net.minecraftforge.items.ItemHandlerHelper;
 import net.minecraftforge.items.ItemStackHandler;
 import net.minecraftforge.items.wrapper.EmptyHandler;
+import net.minecraftforge.registries.ForgeRegistries;
 import org.jetbrains.annotations.NotNull;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
-public class SluiceBlockEntity extends BlockEntity implements TickableBlockEntity, MenuProvider {
+public class SluiceBlockEntity extends BlockEntity implements MenuProvider {
     public final ItemsHandler inventory;
     public final LazyOptional<ItemsHandler> inventoryOptional;
     public final FluidCap tank;
@@ -69,9 +75,14 @@ public class SluiceBlockEntity extends BlockEntity implements TickableBlockEntit
         UPGRADE_SLOT_INDEX.put(Upgrades.LUCK, 0);
         UPGRADE_SLOT_INDEX.put(Upgrades.CONSUMPTION, 1);
         UPGRADE_SLOT_INDEX.put(Upgrades.SPEED, 2);
+        UPGRADE_SLOT_INDEX.put(Upgrades.PARALLEL, 3);
     }
 
-    public final ItemStackHandler upgradeInventory = new ItemStackHandler(3) {
+    public static final int UPGRADE_SLOTS = 4;
+    private static final int OUTPUT_BUFFER_SLOTS = 9;
+    private static final int MAX_OVERCLOCK = 64;
+
+    public final ItemStackHandler upgradeInventory = new ItemStackHandler(UPGRADE_SLOTS) {
         @NotNull
         @Override
         public ItemStack insertItem(int slot, @NotNull ItemStack stack, boolean simulate) {
@@ -89,24 +100,89 @@ public class SluiceBlockEntity extends BlockEntity implements TickableBlockEntit
 
         @Override
         protected void onContentsChanged(int slot) {
-            SluiceBlockEntity.this.updateUpgradeCache(this);
+            SluiceBlockEntity.this.updateUpgradeProfile(this);
+            SluiceBlockEntity.this.lastPowerCost = SluiceBlockEntity.this.upgradeProfile.powerCost;
+            SluiceBlockEntity.this.wake();
+        }
+
+        @Override
+        public void deserializeNBT(CompoundTag nbt) {
+            // Sluices saved before the parallel upgrade existed only have 3 slots
+            CompoundTag tag = nbt.copy();
+            tag.putInt("Size", UPGRADE_SLOTS);
+            super.deserializeNBT(tag);
         }
     };
 
+    /**
+     * Results wait here, merged per item, until they're flushed out in one go. See {@link #flushOutputs(Level)}
+     */
+    public final ItemStackHandler outputBuffer = new ItemStackHandler(OUTPUT_BUFFER_SLOTS);
+    private long flushTick;
+
+    /**
+     * Results that didn't fit in the output buffer while backpressure was holding it. Bounded by the last cycle as no
+     * new cycle starts until this is empty again.
+     */
+    public final List<ItemStack> outputOverflow = new ArrayList<>();
+
+    /**
+     * Set while backpressure is holding results the target inventory had no room for, or while results are waiting for
+     * room to be dropped in. No new cycles start until the buffer drains.
+     */
+    private boolean outputBlocked;
+
+    /**
+     * Cached output target, null until it's looked up again. Cleared when the target's capability is invalidated or
+     * when the funnel sees the block in front of it change.
+     */
+    @Nullable
+    private LazyOptional<IItemHandler> outputTarget;
+    @Nullable
+    private LazyOptional<IItemHandler> listenedTarget;
+
     public Energy energy;
     public LazyOptional<Energy> energyOptional;
     /**
-     * Amount of progress the processing step has made, 100 being fully processed and can drop
-     * the outputs
+     * Game time the current cycle started at and the game time it completes at. Progress is derived from these
+     * on demand, so nothing has to be counted up while the sluice works.
      */
-    public int processed;
+    private long startTick;
+    private long finishTick;
     public int maxProcessed;
     private int fluidUsage;
 
-    // Upgrade type, multiplication
-    public final Object2IntMap<Upgrades> upgradeCache = new Object2IntOpenHashMap<>();
+    /**
+     * Game time the sluice was saved at, read back when its chunk loads so offline catch up only credits the time it was
+     * actually away. Turned into {@link #offlineTicks} on the first update after loading.
+     */
+    private long savedTick = SluiceScheduler.NONE;
+    private long offlineTicks;
+
+    /**
+     * Amount of cycles squeezed into a single tick when the sluice is fast enough to finish in under a tick
+     */
+    private int overclock = 1;
+
+    @Nullable
+    private UpgradeProfile upgradeProfile;
     public int lastPowerCost = 0;
 
+    /**
+     * Set while the sluice couldn't start a cycle because it didn't have enough energy stored
+     */
+    private boolean waitingForEnergy;
+
+    /**
+     * Game time the {@link SluiceScheduler} will update this sluice at, owned by the scheduler
+     */
+    long scheduledTick = SluiceScheduler.NONE;
+
+    /**
+     * Set when something the client renders (the input or the tank) changed outside of a cycle starting or finishing
+     */
+    private boolean syncPending;
+
     public SluiceBlockEntity(BlockEntityType<?> type, SluiceProperties properties) {
         this(type, properties, false);
     }
@@ -118,15 +194,17 @@ public class SluiceBlockEntity extends BlockEntity implements TickableBlockEntit
         this.properties = properties;
         this.isNetherite = isNetherite;
 
-        this.energy = new Energy(!isNetherite
-                ? 0
-                : (int) Math.min(Math.pow(SluiceConfig.GENERAL.exponentialCostBaseN.get(), SluiceConfig.GENERAL.maxUpgradeStackSize.get() * 3 + 1)
-                * SluiceConfig.SLUICES.NETHERITE.costPerUse.get(), Integer.MAX_VALUE), e -> {
+        this.energy = new Energy(!isNetherite ? 0 : UpgradeProfile.energyCapacity(), e -> {
             // Shouldn't be needed but it's better safe.
             if (!this.isNetherite) {
                 return;
             }
             this.setChanged();
+
+            // Cycles only check the energy when they start, so only a sluice that's waiting on it needs a wake up
+            if (this.waitingForEnergy) {
+                this.wake();
+            }
         });
 
         this.energyOptional = LazyOptional.of(() -> this.energy);
@@ -134,23 +212,31 @@ public class SluiceBlockEntity extends BlockEntity implements TickableBlockEntit
         this.fluidUsage = -1;
 
         // Handles state changing
-        this.tank = new FluidCap(true, properties.config.tankCap.get(), e -> true);
+        this.tank = new FluidCap(true, properties.config.tankCap.get(), e -> true) {
+            @Override
+            protected void onContentsChanged() {
+                SluiceBlockEntity.this.syncPending = true;
+                SluiceBlockEntity.this.wake();
+            }
+        };
         this.fluidOptional = LazyOptional.of(() -> this.tank);
 
         this.inventory = new ItemsHandler(!properties.allowsIO, 1) {
             @Override
             protected void onContentsChanged(int slot) {
                 SluiceBlockEntity.this.setChanged();
+                SluiceBlockEntity.this.syncPending = true;
+                SluiceBlockEntity.this.wake();
             }
 
             @Override
             public int getSlotLimit(int slot) {
-                return 1;
+                return properties.config.inputBufferSize.get();
             }
 
             @Override
             public @NotNull ItemStack insertItem(int slot, @NotNull ItemStack stack, boolean simulate) {
-                if (FTBSluiceRecipes.itemIsSluiceInput(SluiceBlockEntity.this.getBlockState().getValue(SluiceBlock.MESH), stack)) {
+                if (FTBSluiceRecipes.itemIsSluiceInput(SluiceBlockEntity.this.level, SluiceBlockEntity.this.getBlockState().getValue(SluiceBlock.MESH), stack)) {
                     return super.insertItem(slot, stack, simulate);
                 }
 
@@ -169,40 +255,37 @@ public class SluiceBlockEntity extends BlockEntity implements TickableBlockEntit
 
     /**
      * Computes a list of resulting output items based on an input. We get the outputting items from the
-     * custom recipe.
+     * compiled recipe drop table, which is shared so it's never modified here.
      */
     public static List<ItemStack> getRandomResult(SluiceBlockEntity sluice, ItemStack input) {
-        List<ItemStack> outputResults = new ArrayList<>();
         if (sluice.level == null) {
-            return outputResults;
+            return new ArrayList<>();
         }
 
         SluiceRecipeInfo recipe = FTBSluiceRecipes.getSluiceRecipes(sluice.tank.getFluid().getFluid(), sluice.level, sluice.getBlockState().getValue(SluiceBlock.MESH), input);
 
-        // Luck calculation
-        int additional = 0;
-        if (sluice.upgradeCache.containsKey(Upgrades.LUCK)) {
-            additional += Upgrades.LUCK.effectedChange * sluice.upgradeCache.getInt(Upgrades.LUCK);
-        }
-
-        List<ItemWithWeight> items = recipe.getItems();
-        Collections.shuffle(items); // Spin the wheel to make it a little less predictable
-        for (ItemWithWeight result : items) {
-            float number = sluice.level.getRandom().nextFloat();
-            if (number <= Mth.clamp(result.weight + (additional / 100D), 0, 1)) {
-                if (outputResults.size() >= recipe.getMaxDrops()) {
-                    break;
-                }
+        // Luck is applied through the recipe's per level chance tables
+        return recipe.roll(sluice.level.getRandom(), sluice.getUpgradeProfile().luck);
+    }
 
-                outputResults.add(result.item.copy());
-            }
+    /**
+     * Batched version of {@link #getRandomResult(SluiceBlockEntity, ItemStack)} that resolves {@code cycles} inputs at
+     * once. Results are merged per item (and split by max stack size) rather than returned per cycle.
+     */
+    public static List<ItemStack> getRandomResults(SluiceBlockEntity sluice, ItemStack input, int cycles) {
+        if (sluice.level == null) {
+            return new ArrayList<>();
         }
 
-        return outputResults;
+        SluiceRecipeInfo recipe = FTBSluiceRecipes.getSluiceRecipes(sluice.tank.getFluid().getFluid(), sluice.level, sluice.getBlockState().getValue(SluiceBlock.MESH), input);
+        return recipe.rollBatch(sluice.level.getRandom(), sluice.getUpgradeProfile().luck, cycles);
     }
 
-    @Override
-    public void tick() {
+    /**
+     * Called by the {@link SluiceScheduler} when the sluice has been woken up or its current cycle is due. Sluices
+     * that can't start a cycle simply aren't rescheduled until something wakes them up again.
+     */
+    void update() {
         if (this.level == null || this.level.isClientSide()) {
             return;
         }
@@ -212,75 +295,113 @@ public class SluiceBlockEntity extends BlockEntity implements TickableBlockEntit
             return;
         }
 
+        // Time spent unloaded only counts towards the cycle that was running when the chunk unloaded
+        if (this.savedTick != SluiceScheduler.NONE) {
+            this.offlineTicks = this.maxProcessed >= 0 ? Math.max(0L, this.level.getGameTime() - this.savedTick) : 0L;
+            this.savedTick = SluiceScheduler.NONE;
+        }
+
+        // Flush first so a sluice held up by backpressure can start again as soon as its buffer drains
+        if (this.level.getGameTime() >= this.flushTick && this.hasBufferedOutputs()) {
+            this.flushOutputs(this.level);
+        }
+
         ItemStack input = this.inventory.getStackInSlot(0);
         if (this.maxProcessed < 0) {
             this.startProcessing(this.level, input);
-        } else {
-            if (this.processed < this.maxProcessed) {
-                if (getBlockState().getValue(SluiceBlock.MESH) == MeshType.NONE) {
-                    cancelProcessing(level, input);
-                    return;
-                }
-                this.processed++;
-            } else {
-                this.finishProcessing(this.level, state, input);
-            }
-
-            if (this.processed % 4 == 0) {
-                this.setChanged();
-                this.level.sendBlockUpdated(this.worldPosition, this.getBlockState(), this.getBlockState(), Constants.BlockFlags.DEFAULT_AND_RERENDER);
-            }
+        } else if (getBlockState().getValue(SluiceBlock.MESH) == MeshType.NONE) {
+            cancelProcessing(level, input);
+        } else if (this.level.getGameTime() >= this.finishTick) {
+            this.finishProcessing(this.level, state, input);
         }
 
-        if (level.getGameTime() % 10L == 0) {
-            this.setChanged();
-            this.level.sendBlockUpdated(this.worldPosition, this.getBlockState(), this.getBlockState(), Constants.BlockFlags.DEFAULT_AND_RERENDER);
+        this.scheduleNextUpdate((ServerLevel) this.level);
+
+        if (this.syncPending) {
+            this.sync(this.level, state);
         }
     }
 
     /**
      * Starts the processing process as long as we have enough fluid and an item in the inventory.
      * We also push a block update to make sure the TES is up to date.
+     *
+     * @return if processing was started
      */
-    private void startProcessing(@Nonnull Level level, ItemStack stack) {
+    private boolean startProcessing(@Nonnull Level level, ItemStack stack) {
+        // Hold off while the output is backed up, nothing gets used up until it drains
+        if (this.outputBlocked) {
+            return false;
+        }
+
         // No energy, no go.
+        this.waitingForEnergy = false;
         if (this.isNetherite && this.energy.getEnergyStored() <= 0) {
-            return;
+            this.waitingForEnergy = true;
+            return false;
         }
 
         if (stack.isEmpty()) {
-            return;
+            return false;
         }
 
         // Throw out any residual stacks if the player has removed the mesh
         if (getBlockState().getValue(SluiceBlock.MESH) == MeshType.NONE) {
             cancelProcessing(level, stack);
-            return;
+            return false;
         }
 
         // Reject if we don't have enough power to process the resource
-        if (this.tank.isEmpty() || this.isNetherite && this.energy.getEnergyStored() < computePowerCost()) {
-            return;
+        if (this.tank.isEmpty()) {
+            return false;
+        }
+
+        if (this.isNetherite && this.energy.getEnergyStored() < this.getUpgradeProfile().powerCost) {
+            this.waitingForEnergy = true;
+            return false;
         }
 
         SluiceRecipeInfo recipe = FTBSluiceRecipes.getSluiceRecipes(this.tank.getFluid().getFluid(), level, this.getBlockState().getValue(SluiceBlock.MESH), stack);
 
         // Throw items out if we don't have a recipe from them. It's simpler than giving the cap a world and mesh.
-        if (recipe.getItems().isEmpty()) {
+        if (recipe.isEmpty()) {
             cancelProcessing(level, stack);
-            return;
+            return false;
         }
 
-        this.processed = 0;
-
         double baseProcessingTime = recipe.getProcessingTime() * this.properties.config.timeMod.get();
         double baseFluidUsage = recipe.getFluidUsed() * this.properties.config.fluidMod.get();
 
-        this.maxProcessed = Math.max(1, (int) Math.round(baseProcessingTime - (baseProcessingTime * (computeEffectModifier(Upgrades.SPEED) / 100f))));
-        this.fluidUsage = Math.max(40, (int) Math.round(baseFluidUsage - (baseFluidUsage * (computeEffectModifier(Upgrades.CONSUMPTION) / 100f))));
+        SluiceScheduler scheduler = SluiceScheduler.get((ServerLevel) level);
+        UpgradeProfile profile = this.getUpgradeProfile();
 
-        this.setChanged();
-        level.sendBlockUpdated(this.worldPosition, this.getBlockState(), this.getBlockState(), Constants.BlockFlags.DEFAULT_AND_RERENDER);
+        // The throttle only stretches cycles while the server is overloaded, it's 1 otherwise
+        double processingTime = baseProcessingTime * profile.speedFactor * scheduler.getThrottle();
+
+        // Anything faster than a tick runs several cycles in that one tick instead of wasting the extra speed, as long
+        // as we can pay for them
+        int overclock = 1;
+        if (this.isNetherite && SluiceConfig.SLUICES.NETHERITE.overclocking.get() && processingTime < 1D) {
+            overclock = (int) Math.min(MAX_OVERCLOCK, 1D / Math.max(processingTime, 1D / MAX_OVERCLOCK));
+            while (overclock > 1 && this.computeInputPowerCost(overclock) > this.energy.getEnergyStored()) {
+                overclock--;
+            }
+        }
+
+        if (this.isNetherite && this.energy.getEnergyStored() < this.computeInputPowerCost(overclock)) {
+            this.waitingForEnergy = true;
+            return false;
+        }
+
+        this.overclock = overclock;
+        this.maxProcessed = Math.max(1, (int) Math.round(processingTime));
+        this.fluidUsage = Math.max(40, (int) Math.round(baseFluidUsage * profile.fluidFactor));
+        this.lastPowerCost = this.computeInputPowerCost();
+        this.startTick = level.getGameTime();
+        this.finishTick = this.startTick + this.maxProcessed;
+
+        this.sync(level, this.getBlockState());
+        return true;
     }
 
     /**
@@ -289,51 +410,304 @@ public class SluiceBlockEntity extends BlockEntity implements TickableBlockEntit
      * @param itemStack the input item from the start of the process.
      */
     private void finishProcessing(@Nonnull Level level, BlockState state, ItemStack itemStack) {
-        this.processed = 0;
+        int inputs = this.computeProcessedInputs(itemStack);
         this.maxProcessed = -1;
 
-        getRandomResult(this, itemStack)
-                .forEach(e -> this.ejectItem(level, state.getValue(BlockStateProperties.HORIZONTAL_FACING), e));
+        // The energy ran out during the cycle, leave everything where it is until there's enough again
+        if (inputs == 0) {
+            this.fluidUsage = -1;
+            this.waitingForEnergy = true;
+            this.sync(level, this.getBlockState());
+            return;
+        }
+
+        (inputs == 1 ? getRandomResult(this, itemStack) : getRandomResults(this, itemStack, inputs))
+                .forEach(e -> this.bufferOutput(level, e));
 
-        this.inventory.setStackInSlot(0, ItemStack.EMPTY);
-        this.tank.internalDrain(this.fluidUsage, IFluidHandler.FluidAction.EXECUTE);
+        if (!this.outputBlocked && this.isOutputTargetFull(level)) {
+            this.outputBlocked = true;
+        }
+
+        ItemStack remaining = itemStack.copy();
+        remaining.shrink(inputs);
+        this.inventory.setStackInSlot(0, remaining);
+        this.tank.internalDrain(this.fluidUsage * inputs, IFluidHandler.FluidAction.EXECUTE);
 
         this.fluidUsage = -1;
 
         if (this.isNetherite) {
-            this.energy.consumeEnergy(computePowerCost(), false);
+            this.energy.consumeEnergy((int) Math.min((long) computeInputPowerCost() * inputs, Integer.MAX_VALUE), false);
+        }
+
+        this.sync(level, this.getBlockState());
+    }
+
+    /**
+     * Works out how many input items have been processed by now. Each cycle processes one item plus one per parallel
+     * upgrade, times the overclock. Normally only one cycle completes, but with offline catch up enabled a sluice that
+     * sat in an unloaded chunk also completes every cycle that would have fit in the time it was away. Updates that are
+     * merely late don't earn anything extra. Either way each item costs its own fluid and energy, so the count is
+     * capped by what the sluice has, which means it can be 0 if the energy was used up elsewhere in the meantime.
+     */
+    private int computeProcessedInputs(ItemStack input) {
+        long cycles = 1;
+        if (SluiceConfig.PERFORMANCE.offlineCatchUp.get() && this.maxProcessed > 0) {
+            cycles += this.offlineTicks / this.maxProcessed;
+        }
+
+        this.offlineTicks = 0L;
+
+        long perCycle = (1L + this.getUpgradeProfile().parallel) * this.overclock;
+        int inputs = (int) Math.min(cycles * perCycle, input.getCount());
+        inputs = Math.max(1, Math.min(inputs, this.tank.getFluidAmount() / Math.max(1, this.fluidUsage)));
+
+        // Unlike fluid, energy is never spent on credit. Nothing is processed if we can't pay for a single item
+        if (this.isNetherite) {
+            inputs = Math.min(inputs, this.energy.getEnergyStored() / Math.max(1, computeInputPowerCost()));
+        }
+
+        return inputs;
+    }
+
+    /**
+     * Adds a result to the output buffer. The first result in an empty buffer starts the flush timer and a full buffer
+     * is flushed straight away to make room.
+     */
+    private void bufferOutput(Level level, ItemStack stack) {
+        if (!this.hasBufferedOutputs()) {
+            this.flushTick = level.getGameTime() + SluiceConfig.PERFORMANCE.outputFlushInterval.get();
+        }
+
+        ItemStack remaining = ItemHandlerHelper.insertItemStacked(this.outputBuffer, stack, false);
+        if (!remaining.isEmpty()) {
+            this.flushOutputs(level);
+            remaining = ItemHandlerHelper.insertItemStacked(this.outputBuffer, remaining, false);
+        }
+
+        if (!remaining.isEmpty()) {
+            IItemHandler handler = this.getOutputHandler(level);
+            if (!this.holdsOutputs(handler)) {
+                remaining = this.ejectItem(level, this.getBlockState().getValue(BlockStateProperties.HORIZONTAL_FACING), handler, remaining);
+            }
+
+            if (!remaining.isEmpty()) {
+                this.keepOutput(level, remaining);
+            }
+        }
+    }
+
+    /**
+     * Keeps a result in the sluice that couldn't go anywhere, no new cycle starts until it's gone
+     */
+    private void keepOutput(Level level, ItemStack stack) {
+        if (!this.hasBufferedOutputs()) {
+            this.flushTick = level.getGameTime() + SluiceConfig.PERFORMANCE.outputFlushInterval.get();
+        }
+
+        // Input buffers can hold more than a stack, keep everything as regular stacks so it saves properly
+        while (!stack.isEmpty()) {
+            this.outputOverflow.add(stack.split(stack.getMaxStackSize()));
+        }
+
+        this.outputBlocked = true;
+    }
+
+    /**
+     * @return if backpressure should keep results in the sluice instead of dropping what the target can't take
+     */
+    private boolean holdsOutputs(IItemHandler handler) {
+        return this.properties.config.backpressure.get() && handler.getSlots() != 0;
+    }
+
+    /**
+     * Checks if the target can take everything that's buffered right now, so a full target stops new cycles straight
+     * away instead of only at the next flush.
+     */
+    private boolean isOutputTargetFull(Level level) {
+        IItemHandler handler = this.getOutputHandler(level);
+        if (!this.holdsOutputs(handler)) {
+            return false;
+        }
+
+        for (int i = 0; i < this.outputBuffer.getSlots(); i++) {
+            ItemStack stack = this.outputBuffer.getStackInSlot(i);
+            if (!stack.isEmpty() && !ItemHandlerHelper.insertItem(handler, stack, true).isEmpty()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Pushes everything in the output buffer into the target inventory, looking it up only once for the whole buffer.
+     * Anything that doesn't fit is dropped in the world like a regular eject, unless backpressure is enabled and there
+     * is a target, in which case it stays in the buffer (or the overflow) and we try again after another flush interval.
+     * The same goes for drops once the area in front of the sluice is full, see {@link #dropItem(Level, Direction, ItemStack)}.
+     */
+    private void flushOutputs(Level level) {
+        Direction direction = this.getBlockState().getValue(BlockStateProperties.HORIZONTAL_FACING);
+        IItemHandler handler = this.getOutputHandler(level);
+        boolean hold = this.holdsOutputs(handler);
+        boolean blocked = false;
+
+        for (int i = 0; i < this.outputBuffer.getSlots(); i++) {
+            ItemStack stack = this.outputBuffer.getStackInSlot(i);
+            if (stack.isEmpty()) {
+                continue;
+            }
+
+            if (hold) {
+                ItemStack remaining = ItemHandlerHelper.insertItem(handler, stack, false);
+                this.outputBuffer.setStackInSlot(i, remaining);
+                blocked |= !remaining.isEmpty();
+            } else {
+                this.outputBuffer.setStackInSlot(i, ItemStack.EMPTY);
+                ItemStack remaining = this.ejectItem(level, direction, handler, stack);
+                this.outputBuffer.setStackInSlot(i, remaining);
+                blocked |= !remaining.isEmpty();
+            }
+        }
+
+        // Overflow goes straight to the target, then back into the buffer once there's room for it
+        Iterator<ItemStack> overflow = this.outputOverflow.iterator();
+        while (overflow.hasNext()) {
+            ItemStack stack = overflow.next();
+            ItemStack remaining = hold ? ItemHandlerHelper.insertItem(handler, stack, false) : this.ejectItem(level, direction, handler, stack);
+            remaining = ItemHandlerHelper.insertItemStacked(this.outputBuffer, remaining, false);
+            if (remaining.isEmpty()) {
+                overflow.remove();
+            } else {
+                stack.setCount(remaining.getCount());
+                blocked = true;
+            }
+        }
+
+        this.outputBlocked = blocked;
+        if (blocked) {
+            this.flushTick = level.getGameTime() + SluiceConfig.PERFORMANCE.outputFlushInterval.get();
         }
 
         this.setChanged();
-        level.sendBlockUpdated(this.worldPosition, this.getBlockState(), this.getBlockState(), Constants.BlockFlags.DEFAULT_AND_RERENDER);
+    }
+
+    private boolean hasBufferedOutputs() {
+        if (!this.outputOverflow.isEmpty()) {
+            return true;
+        }
+
+        for (int i = 0; i < this.outputBuffer.getSlots(); i++) {
+            if (!this.outputBuffer.getStackInSlot(i).isEmpty()) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Lets the scheduler know when we next need an update, which is either the end of the current cycle or the next
+     * output flush, whichever comes first.
+     */
+    private void scheduleNextUpdate(ServerLevel level) {
+        long next = Long.MAX_VALUE;
+        if (this.maxProcessed >= 0) {
+            next = this.finishTick;
+        }
+
+        if (this.hasBufferedOutputs()) {
+            next = Math.min(next, this.flushTick);
+        }
+
+        if (next != Long.MAX_VALUE) {
+            SluiceScheduler.get(level).schedule(this, Math.max(next, level.getGameTime() + 1));
+        }
     }
 
     private void cancelProcessing(Level level, ItemStack stack) {
-        this.ejectItem(level, this.getBlockState().getValue(BlockStateProperties.HORIZONTAL_FACING), stack);
+        ItemStack remaining = this.ejectItem(level, this.getBlockState().getValue(BlockStateProperties.HORIZONTAL_FACING), stack.copy());
+        if (!remaining.isEmpty()) {
+            this.keepOutput(level, remaining);
+        }
+
         this.inventory.setStackInSlot(0, ItemStack.EMPTY);
-        this.processed = 0;
         this.maxProcessed = -1;
         this.fluidUsage = -1;
+        this.offlineTicks = 0L;
+        this.sync(level, this.getBlockState());
+    }
+
+    /**
+     * Marks the sluice as changed and pushes its state to the client so the TES is up to date.
+     */
+    private void sync(Level level, BlockState state) {
+        this.syncPending = false;
         this.setChanged();
-        level.sendBlockUpdated(this.worldPosition, this.getBlockState(), this.getBlockState(), Constants.BlockFlags.DEFAULT_AND_RERENDER);
+        level.sendBlockUpdated(this.worldPosition, state, state, Constants.BlockFlags.DEFAULT_AND_RERENDER);
     }
 
-    private int computePowerCost() {
-        int cost = SluiceConfig.SLUICES.NETHERITE.costPerUse.get();
-        if (!upgradeCache.isEmpty()) {
-            int sum = 0;
-            for (int i : upgradeCache.values()) {
-                sum += i;
-            }
+    /**
+     * @return how far along the current cycle is, from 0 to 1, or 0 if the sluice isn't processing anything
+     */
+    public float getProgress(float partialTick) {
+        if (this.level == null || this.maxProcessed <= 0) {
+            return 0F;
+        }
+
+        float elapsed = this.level.getGameTime() - this.startTick + partialTick;
+        return Mth.clamp(elapsed / this.maxProcessed, 0F, 1F);
+    }
+
+    /**
+     * Queues the sluice for an update on the next tick. Called whenever the input, fluid, energy, upgrades or mesh
+     * change, as that's the only time an idle sluice might be able to start again.
+     */
+    public void wake() {
+        if (this.level instanceof ServerLevel) {
+            SluiceScheduler.get((ServerLevel) this.level).wake(this);
+        }
+    }
+
+    @Override
+    public void onLoad() {
+        super.onLoad();
+        this.wake();
+    }
 
-            cost = (int) Math.min(Math.pow(SluiceConfig.GENERAL.exponentialCostBaseN.get(), sum) * cost, Integer.MAX_VALUE);
+    @Override
+    public void onChunkUnloaded() {
+        super.onChunkUnloaded();
+        if (this.level instanceof ServerLevel) {
+            SluiceScheduler.get((ServerLevel) this.level).cancel(this);
         }
-        this.lastPowerCost = cost;
+    }
+
+    /**
+     * Power cost of processing a single item. Overclocked sluices pay for the extra cycles per tick the same way they
+     * pay for upgrades, every extra cycle multiplies the cost by the exponential cost base.
+     */
+    private int computeInputPowerCost() {
+        return this.computeInputPowerCost(this.overclock);
+    }
+
+    private int computeInputPowerCost(int overclock) {
+        int cost = this.getUpgradeProfile().powerCost;
+        if (overclock > 1) {
+            cost = (int) Math.min(Math.pow(SluiceConfig.GENERAL.exponentialCostBaseN.get(), overclock - 1) * cost, Integer.MAX_VALUE);
+        }
+
         return cost;
     }
 
-    private int computeEffectModifier(Upgrades upgrade) {
-        return upgradeCache.getOrDefault(upgrade, 0) * upgrade.effectedChange;
+    /**
+     * @return the upgrade profile, recomputed if the config has been reloaded since it was made
+     */
+    public UpgradeProfile getUpgradeProfile() {
+        if (this.upgradeProfile == null || this.upgradeProfile.isStale()) {
+            this.updateUpgradeProfile(this.upgradeInventory);
+        }
+
+        return this.upgradeProfile;
     }
 
     @Override
@@ -343,13 +717,23 @@ public class SluiceBlockEntity extends BlockEntity implements TickableBlockEntit
 
         compound.put("Inventory", this.inventory.serializeNBT());
         compound.put("Fluid", fluidTag);
-        compound.putInt("Processed", this.processed);
+        compound.putLong("StartTick", this.startTick);
+        compound.putLong("FinishTick", this.finishTick);
         compound.putInt("MaxProcessed", this.maxProcessed);
         compound.putInt("FluidUsage", this.fluidUsage);
+        compound.putInt("Overclock", this.overclock);
+        compound.put("Outputs", this.outputBuffer.serializeNBT());
+        compound.putLong("FlushTick", this.flushTick);
+        if (this.level != null) {
+            compound.putLong("SavedTick", this.level.getGameTime());
+        }
+        compound.putBoolean("OutputBlocked", this.outputBlocked);
+        ListTag overflow = new ListTag();
+        this.outputOverflow.forEach(stack -> overflow.add(stack.save(new CompoundTag())));
+        compound.put("Overflow", overflow);
         compound.putInt("LastPowerCost", this.lastPowerCost);
         if (this.isNetherite) {
             compound.put("Upgrades", upgradeInventory.serializeNBT());
-            this.updateUpgradeCache(this.upgradeInventory);
             this.energyOptional.ifPresent(e -> compound.put("Energy", e.serializeNBT()));
         }
 
@@ -361,15 +745,30 @@ public class SluiceBlockEntity extends BlockEntity implements TickableBlockEntit
         super.load(state, compound);
 
         this.inventory.deserializeNBT(compound.getCompound("Inventory"));
-        this.processed = compound.getInt("Processed");
+        // Sluices saved before deadlines existed have no FinishTick and simply complete their cycle on the next tick
+        this.startTick = compound.getLong("StartTick");
+        this.finishTick = compound.getLong("FinishTick");
         this.maxProcessed = compound.getInt("MaxProcessed");
         this.fluidUsage = compound.getInt("FluidUsage");
+        this.overclock = Math.max(1, compound.getInt("Overclock"));
+        this.flushTick = compound.getLong("FlushTick");
+        // Sluices saved before this was tracked get no offline time credited
+        this.savedTick = compound.contains("SavedTick") ? compound.getLong("SavedTick") : SluiceScheduler.NONE;
+        this.outputBlocked = compound.getBoolean("OutputBlocked");
+        if (compound.contains("Outputs")) {
+            this.outputBuffer.deserializeNBT(compound.getCompound("Outputs"));
+        }
+        this.outputOverflow.clear();
+        ListTag overflow = compound.getList("Overflow", Constants.NBT.TAG_COMPOUND);
+        for (int i = 0; i < overflow.size(); i++) {
+            this.outputOverflow.add(ItemStack.of(overflow.getCompound(i)));
+        }
         this.lastPowerCost = compound.getInt("LastPowerCost");
 
         if (this.isNetherite) {
             this.energyOptional.ifPresent(e -> e.deserializeNBT(compound.getCompound("Energy")));
             this.upgradeInventory.deserializeNBT(compound.getCompound("Upgrades"));
-            this.updateUpgradeCache(this.upgradeInventory);
+            this.updateUpgradeProfile(this.upgradeInventory);
         }
 
         if (compound.contains("Fluid")) {
@@ -377,16 +776,8 @@ public class SluiceBlockEntity extends BlockEntity implements TickableBlockEntit
         }
     }
 
-    private void updateUpgradeCache(ItemStackHandler handler) {
-        SluiceBlockEntity.this.upgradeCache.clear();
-        for (int i = 0; i < handler.getSlots(); i++) {
-            ItemStack stack = handler.getStackInSlot(i);
-            if (!(stack.getItem() instanceof UpgradeItem)) {
-                continue;
-            }
-
-            SluiceBlockEntity.this.upgradeCache.put(((UpgradeItem) stack.getItem()).getUpgrade(), Math.min(stack.getCount(), 18));
-        }
+    private void updateUpgradeProfile(ItemStackHandler handler) {
+        this.upgradeProfile = UpgradeProfile.of(handler);
     }
 
     @Nonnull
@@ -407,28 +798,99 @@ public class SluiceBlockEntity extends BlockEntity implements TickableBlockEntit
         return super.getCapability(cap, side);
     }
 
-    private void ejectItem(Level w, Direction direction, ItemStack stack) {
-        if (this.properties.allowsIO) {
-            // Find the closest inventory to the block.
-            IItemHandler handler = this.seekNearestInventory(w).orElseGet(EmptyHandler::new);
+    /**
+     * @return whatever couldn't be inserted or dropped
+     */
+    private ItemStack ejectItem(Level w, Direction direction, ItemStack stack) {
+        return this.ejectItem(w, direction, this.getOutputHandler(w), stack);
+    }
+
+    private ItemStack ejectItem(Level w, Direction direction, IItemHandler handler, ItemStack stack) {
+        // Empty handler does not have slots and is thus very simple to check against.
+        if (handler.getSlots() != 0) {
+            stack = ItemHandlerHelper.insertItem(handler, stack, false);
+        }
+
+        return stack.isEmpty() ? ItemStack.EMPTY : this.dropItem(w, direction, stack);
+    }
+
+    /**
+     * Drops the stack in front of the sluice. Drops are merged into matching item entities already lying there, and
+     * once the area holds the configured max amount of drops we stop adding entities.
+     *
+     * @return whatever didn't fit in the area, to be kept in the sluice until there's room again
+     */
+    private ItemStack dropItem(Level w, Direction direction, ItemStack stack) {
+        BlockPos pos = this.worldPosition.relative(direction);
+        int lifespan = (this instanceof OakSluiceBlockEntity || this instanceof IronSluiceBlockEntity ? 60 : 10) * 20;
 
-            // Empty handler does not have slots and is thus very simple to check against.
-            if (handler.getSlots() != 0) {
-                stack = ItemHandlerHelper.insertItem(handler, stack, false);
+        List<QuickDropItemEntity> drops = w.getEntitiesOfClass(QuickDropItemEntity.class, new AABB(pos).inflate(1D));
+        int maxDrops = SluiceConfig.PERFORMANCE.maxDropEntities.get();
+        boolean full = maxDrops > 0 && drops.size() >= maxDrops;
+
+        for (QuickDropItemEntity drop : drops) {
+            stack = drop.merge(stack, lifespan);
+            if (stack.isEmpty()) {
+                return ItemStack.EMPTY;
             }
         }
 
-        if (!stack.isEmpty()) {
-            BlockPos pos = this.worldPosition.relative(direction);
+        if (full) {
+            return stack;
+        }
+
+        double my = 0.14D * (w.random.nextFloat() * 0.4D);
 
-            double my = 0.14D * (w.random.nextFloat() * 0.4D);
+        QuickDropItemEntity itemEntity = new QuickDropItemEntity(w, pos.getX() + 0.5D, pos.getY() + 0.5D, pos.getZ() + 0.5D, stack, lifespan);
 
-            QuickDropItemEntity itemEntity = new QuickDropItemEntity(w, pos.getX() + 0.5D, pos.getY() + 0.5D, pos.getZ() + 0.5D, stack, (this instanceof OakSluiceBlockEntity || this instanceof IronSluiceBlockEntity ? 60 : 10) * 20);
+        itemEntity.setNoPickUpDelay();
+        itemEntity.setDeltaMovement(0, my, 0);
+        w.addFreshEntity(itemEntity);
+        return ItemStack.EMPTY;
+    }
 
-            itemEntity.setNoPickUpDelay();
-            itemEntity.setDeltaMovement(0, my, 0);
-            w.addFreshEntity(itemEntity);
+    /**
+     * @return the closest inventory to the block, or an empty handler if there is none or the sluice can't output
+     */
+    private IItemHandler getOutputHandler(Level level) {
+        if (!this.properties.allowsIO) {
+            return EmptyHandler.INSTANCE;
+        }
+
+        if (this.outputTarget == null) {
+            LazyOptional<IItemHandler> target = this.seekNearestInventory(level);
+
+            // Listeners are never removed, so only add one the first time we see an optional. Empty optionals call
+            // the listener straight away, before we've cached them, so this can't clear them
+            if (target != this.listenedTarget) {
+                this.listenedTarget = target;
+                target.addListener(clearOutputTarget(this));
+            }
+
+            this.outputTarget = target;
         }
+
+        return this.outputTarget.orElse(EmptyHandler.INSTANCE);
+    }
+
+    /**
+     * Only holds on to the sluice weakly, the listener lives as long as the target's optional does
+     */
+    private static NonNullConsumer<LazyOptional<IItemHandler>> clearOutputTarget(SluiceBlockEntity sluice) {
+        WeakReference<SluiceBlockEntity> reference = new WeakReference<>(sluice);
+        return target -> {
+            SluiceBlockEntity s = reference.get();
+            if (s != null && s.outputTarget == target) {
+                s.outputTarget = null;
+            }
+        };
+    }
+
+    /**
+     * Drops the cached output target so the next eject looks it up again
+     */
+    public void invalidateOutputTarget() {
+        this.outputTarget = null;
     }
 
     /**
@@ -454,25 +916,61 @@ public class SluiceBlockEntity extends BlockEntity implements TickableBlockEntit
         return new AABB(this.getBlockPos()).inflate(1);
     }
 
+    /**
+     * Writes only what the client needs to render the sluice and show it in TOP and the upgrade screen. This is kept
+     * separate from {@link #save(CompoundTag)} so syncs don't carry the upgrade inventory, output buffer or energy. The
+     * mesh is part of the block state so it's synced with that.
+     */
+    private CompoundTag writeClientData(CompoundTag tag) {
+        tag.put("Input", this.inventory.serializeNBT());
+
+        FluidStack fluid = this.tank.getFluid();
+        if (!fluid.isEmpty()) {
+            tag.putString("FluidId", fluid.getFluid().getRegistryName().toString());
+            tag.putInt("FluidAmount", fluid.getAmount());
+        }
+
+        tag.putLong("StartTick", this.startTick);
+        tag.putInt("MaxProcessed", this.maxProcessed);
+
+        if (this.isNetherite) {
+            tag.putInt("LastPowerCost", this.lastPowerCost);
+        }
+
+        return tag;
+    }
+
+    private void readClientData(CompoundTag tag) {
+        this.inventory.deserializeNBT(tag.getCompound("Input"));
+
+        Fluid fluid = tag.contains("FluidId") ? ForgeRegistries.FLUIDS.getValue(new ResourceLocation(tag.getString("FluidId"))) : null;
+        this.tank.setFluid(fluid == null ? FluidStack.EMPTY : new FluidStack(fluid, tag.getInt("FluidAmount")));
+
+        this.startTick = tag.getLong("StartTick");
+        this.maxProcessed = tag.getInt("MaxProcessed");
+        this.lastPowerCost = tag.getInt("LastPowerCost");
+    }
+
     @Override
     public CompoundTag getUpdateTag() {
-        return this.save(new CompoundTag());
+        // The chunk packet finds the block entity from the position in the tag, so that has to be in there too
+        return this.writeClientData(super.save(new CompoundTag()));
     }
 
     @Override
     public void handleUpdateTag(BlockState state, CompoundTag tag) {
-        this.load(state, tag);
+        this.readClientData(tag);
     }
 
     @Nullable
     @Override
     public ClientboundBlockEntityDataPacket getUpdatePacket() {
-        return new ClientboundBlockEntityDataPacket(this.worldPosition, 0, this.save(new CompoundTag()));
+        return new ClientboundBlockEntityDataPacket(this.worldPosition, 0, this.writeClientData(new CompoundTag()));
     }
 
     @Override
     public void onDataPacket(Connection net, ClientboundBlockEntityDataPacket pkt) {
-        this.load(this.getBlockState(), pkt.getTag());
+        this.readClientData(pkt.getTag());
     }
 
     @Override
@@ -38,8 +38,7 @@ public class SluiceRenderer extends TileEntityRendererAnimation<SluiceBlockEntit
             return;
         }
 
-        int progress = (te.processed * 100) / te.maxProcessed;
-        float offset = te.processed < 0 ? 0 : progress;
+        float offset = te.getProgress(partialTick) * 100F;
 
         float v = te.getBlockState().getValue(BlockStateProperties.HORIZONTAL_FACING).toYRot();
         matrix.pushPose();
@@ -0,0 +1,222 @@
+package dev.ftb.mods.sluice.block.sluice;
+
+import dev.ftb.mods.sluice.SluiceConfig;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceLinkedOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraftforge.common.world.ForgeChunkManager;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Owns every active sluice in a level. Processing sluices sit in a hashed timer wheel keyed by the game time their
+ * cycle completes at, so each tick only touches the sluices that are actually due. Sluices that need attention outside
+ * of a deadline (new input, fluid, a mesh change...) are woken up through {@link #wake(SluiceBlockEntity)} and get
+ * updated on the next tick.
+ * <p>
+ * Updates are limited by the budget in {@link SluiceConfig#PERFORMANCE}. Anything over the budget stays queued in
+ * order and is handled first on the following ticks, so a whole farm finishing at once is spread out instead of
+ * spiking the tick.
+ * <p>
+ * With adaptive throttling enabled the scheduler also tracks the server's average tick time and hands out a factor
+ * that new cycles are stretched by while the server is struggling, see {@link #getThrottle()}.
+ * <p>
+ * Sluices only run where a ticking block entity would: in ticking chunks inside the world border, and not while the
+ * level has paused block entities because it's been empty for a while. Anything else is parked until it would tick.
+ */
+public class SluiceScheduler {
+    static final long NONE = Long.MIN_VALUE;
+
+    // Has to be a power of two, cycles longer than this simply stay in their bucket for another lap
+    private static final int WHEEL_SIZE = 256;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    // Same as ServerLevel, block entities stop ticking once a level has had no players or forced chunks for this long
+    private static final int EMPTY_TICKS_BEFORE_PAUSE = 300;
+
+    private static final Map<ServerLevel, SluiceScheduler> SCHEDULERS = new Reference2ObjectOpenHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    private final List<SluiceBlockEntity>[] wheel = new List[WHEEL_SIZE];
+    private final ReferenceLinkedOpenHashSet<SluiceBlockEntity> awake = new ReferenceLinkedOpenHashSet<>();
+    // Woken up in a chunk that isn't ticking, checked again every second
+    private final ReferenceLinkedOpenHashSet<SluiceBlockEntity> parked = new ReferenceLinkedOpenHashSet<>();
+    private long lastTick = NONE;
+    private float throttle = 1F;
+    private int emptyTime;
+
+    private SluiceScheduler() {
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            this.wheel[i] = new ArrayList<>();
+        }
+    }
+
+    public static SluiceScheduler get(ServerLevel level) {
+        return SCHEDULERS.computeIfAbsent(level, l -> new SluiceScheduler());
+    }
+
+    public static void tick(ServerLevel level) {
+        SluiceScheduler scheduler = SCHEDULERS.get(level);
+        if (scheduler != null) {
+            if (level.players().isEmpty() && !ForgeChunkManager.hasForcedChunks(level)) {
+                if (scheduler.emptyTime++ >= EMPTY_TICKS_BEFORE_PAUSE) {
+                    return;
+                }
+            } else {
+                scheduler.emptyTime = 0;
+            }
+
+            if (level.getGameTime() % 20L == 0) {
+                scheduler.updateThrottle(level.getServer().tickTimes);
+                scheduler.unpark(level);
+            }
+
+            scheduler.tick(level, level.getGameTime());
+        }
+    }
+
+    public static void unload(ServerLevel level) {
+        SCHEDULERS.remove(level);
+    }
+
+    /**
+     * Queues the sluice to be updated on the next tick
+     */
+    void wake(SluiceBlockEntity sluice) {
+        this.awake.add(sluice);
+    }
+
+    /**
+     * Puts the sluice in the wheel to be updated at the given game time. Rescheduling simply moves the deadline, any
+     * entry left behind in another bucket is dropped once that bucket comes around.
+     */
+    void schedule(SluiceBlockEntity sluice, long tick) {
+        if (sluice.scheduledTick == tick) {
+            return;
+        }
+
+        boolean sameBucket = sluice.scheduledTick != NONE && (sluice.scheduledTick & WHEEL_MASK) == (tick & WHEEL_MASK);
+        sluice.scheduledTick = tick;
+        if (!sameBucket) {
+            this.wheel[(int) (tick & WHEEL_MASK)].add(sluice);
+        }
+    }
+
+    /**
+     * Forgets about the sluice, used when its chunk unloads
+     */
+    void cancel(SluiceBlockEntity sluice) {
+        sluice.scheduledTick = NONE;
+        this.awake.remove(sluice);
+        this.parked.remove(sluice);
+    }
+
+    /**
+     * @return the factor new cycles' processing time should be multiplied by, 1 unless the server is overloaded
+     */
+    float getThrottle() {
+        return this.throttle;
+    }
+
+    private void updateThrottle(long[] tickTimes) {
+        if (!SluiceConfig.PERFORMANCE.adaptiveThrottling.get()) {
+            this.throttle = 1F;
+            return;
+        }
+
+        long total = 0;
+        for (long time : tickTimes) {
+            total += time;
+        }
+
+        double mspt = total / (double) tickTimes.length / 1_000_000D;
+        double threshold = SluiceConfig.PERFORMANCE.throttleMspt.get();
+        this.throttle = (float) Math.min(SluiceConfig.PERFORMANCE.maxThrottleFactor.get(), Math.max(1D, mspt / threshold));
+    }
+
+    private static boolean isTicking(ServerLevel level, SluiceBlockEntity sluice) {
+        BlockPos pos = sluice.getBlockPos();
+        return level.getChunkSource().isTickingChunk(pos) && level.getWorldBorder().isWithinBounds(pos);
+    }
+
+    /**
+     * Wakes parked sluices back up once their chunk ticks again
+     */
+    private void unpark(ServerLevel level) {
+        Iterator<SluiceBlockEntity> iterator = this.parked.iterator();
+        while (iterator.hasNext()) {
+            SluiceBlockEntity sluice = iterator.next();
+            if (sluice.isRemoved()) {
+                iterator.remove();
+            } else if (isTicking(level, sluice)) {
+                iterator.remove();
+                this.awake.add(sluice);
+            }
+        }
+    }
+
+    private void tick(ServerLevel level, long gameTime) {
+        // Catch up on any buckets we missed, but never go round the wheel more than once
+        long from = this.lastTick == NONE ? gameTime : Math.max(this.lastTick + 1, gameTime - WHEEL_MASK);
+        this.lastTick = gameTime;
+
+        for (long tick = from; tick <= gameTime; tick++) {
+            this.collectDue(this.wheel[(int) (tick & WHEEL_MASK)], tick, gameTime);
+        }
+
+        int maxUpdates = SluiceConfig.PERFORMANCE.maxUpdatesPerTick.get();
+        long maxNanos = SluiceConfig.PERFORMANCE.maxMicrosPerTick.get() * 1000L;
+        long start = maxNanos > 0 ? System.nanoTime() : 0L;
+
+        // Anything woken up while updating is queued behind the current sluices and handled next tick
+        int pending = this.awake.size();
+        int updates = 0;
+        while (pending-- > 0) {
+            SluiceBlockEntity sluice = this.awake.removeFirst();
+            if (sluice.isRemoved()) {
+                continue;
+            }
+
+            if (!isTicking(level, sluice)) {
+                this.parked.add(sluice);
+                continue;
+            }
+
+            sluice.update();
+            updates++;
+
+            // Always make some progress, even if a single update blows the budget
+            if (maxUpdates > 0 && updates >= maxUpdates || maxNanos > 0 && System.nanoTime() - start >= maxNanos) {
+                break;
+            }
+        }
+    }
+
+    private void collectDue(List<SluiceBlockEntity> bucket, long slot, long gameTime) {
+        int i = 0;
+        while (i < bucket.size()) {
+            SluiceBlockEntity sluice = bucket.get(i);
+            long tick = sluice.scheduledTick;
+
+            // Stale entries (removed sluices or ones moved to another bucket) are dropped here
+            boolean stale = sluice.isRemoved() || tick == NONE || (tick & WHEEL_MASK) != (slot & WHEEL_MASK);
+            if (!stale && tick > gameTime) {
+                i++;
+                continue;
+            }
+
+            // Swap remove, order within a bucket doesn't matter
+            bucket.set(i, bucket.get(bucket.size() - 1));
+            bucket.remove(bucket.size() - 1);
+
+            if (!stale) {
+                sluice.scheduledTick = NONE;
+                this.awake.add(sluice);
+            }
+        }
+    }
+}
@@ -38,5 +38,8 @@ public class SluiceScreen extends AbstractContainerScreen<SluiceBlockContainer>
         int k = (this.width - this.imageWidth) / 2;
         int l = (this.height - this.imageHeight) / 2;
         this.blit(pose, k, l, 0, 0, this.imageWidth, this.imageHeight);
+
+        // The background only has three upgrade slots drawn, reuse the first one's frame for the parallel slot
+        this.blit(pose, k + 61 + 3 * 18, l + 19, 61, 19, 18, 18);
     }
 }
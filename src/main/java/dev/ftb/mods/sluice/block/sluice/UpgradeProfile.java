@@ -0,0 +1,103 @@
+package dev.ftb.mods.sluice.block.sluice;
+
+import dev.ftb.mods.sluice.SluiceConfig;
+import dev.ftb.mods.sluice.item.UpgradeItem;
+import dev.ftb.mods.sluice.item.Upgrades;
+import net.minecraft.world.item.ItemStack;
+import net.minecraftforge.items.IItemHandler;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Everything a sluice needs to know about its upgrades, worked out once whenever the upgrades change instead of on
+ * every cycle. Profiles are tied to the config they were computed from and go stale once the config is reloaded, see
+ * {@link #isStale()}.
+ */
+public final class UpgradeProfile {
+    // Upgrades past this amount in a single slot don't do anything
+    private static final int MAX_COUNTED_UPGRADES = 18;
+
+    // Only ever bumped from the config watcher thread, but read from the server and client threads
+    private static volatile int configGeneration;
+    private static volatile int energyCapacityGeneration = -1;
+    private static volatile int energyCapacity;
+
+    private final int generation;
+
+    public final int luck;
+    public final int parallel;
+    /**
+     * Multipliers for the processing time and fluid usage, 1 meaning no upgrades
+     */
+    public final double speedFactor;
+    public final double fluidFactor;
+    /**
+     * Power cost of a single item, the base cost raised exponentially by the amount of upgrades other than parallel
+     */
+    public final int powerCost;
+
+    private UpgradeProfile(Map<Upgrades, Integer> counts) {
+        this.generation = configGeneration;
+
+        this.luck = counts.getOrDefault(Upgrades.LUCK, 0);
+        this.parallel = counts.getOrDefault(Upgrades.PARALLEL, 0);
+        this.speedFactor = 1D - counts.getOrDefault(Upgrades.SPEED, 0) * Upgrades.SPEED.effectedChange / 100D;
+        this.fluidFactor = 1D - counts.getOrDefault(Upgrades.CONSUMPTION, 0) * Upgrades.CONSUMPTION.effectedChange / 100D;
+
+        // Parallel upgrades pay for every extra item instead, see SluiceBlockEntity#computeProcessedInputs
+        int sum = 0;
+        for (Map.Entry<Upgrades, Integer> entry : counts.entrySet()) {
+            if (entry.getKey() != Upgrades.PARALLEL) {
+                sum += entry.getValue();
+            }
+        }
+
+        int cost = SluiceConfig.SLUICES.NETHERITE.costPerUse.get();
+        this.powerCost = sum == 0 ? cost : (int) Math.min(Math.pow(SluiceConfig.GENERAL.exponentialCostBaseN.get(), sum) * cost, Integer.MAX_VALUE);
+    }
+
+    public static UpgradeProfile of(IItemHandler handler) {
+        Map<Upgrades, Integer> counts = new EnumMap<>(Upgrades.class);
+        for (int i = 0; i < handler.getSlots(); i++) {
+            ItemStack stack = handler.getStackInSlot(i);
+            if (!(stack.getItem() instanceof UpgradeItem)) {
+                continue;
+            }
+
+            counts.merge(((UpgradeItem) stack.getItem()).getUpgrade(), Math.min(stack.getCount(), MAX_COUNTED_UPGRADES), Integer::sum);
+        }
+
+        return new UpgradeProfile(counts);
+    }
+
+    /**
+     * Marks every profile as stale, called when the config is reloaded
+     */
+    public static void invalidateAll() {
+        configGeneration++;
+    }
+
+    /**
+     * Energy buffer of a netherite sluice, big enough for a whole cycle with every upgrade slot maxed out: the maxed out
+     * per item cost for each item of a maxed out parallel upgrade. Energy is stored as an int, so with steep configs the
+     * buffer is capped and a cycle processes as many items as it can pay for.
+     */
+    public static int energyCapacity() {
+        if (energyCapacityGeneration != configGeneration) {
+            int maxCount = Math.min(SluiceConfig.GENERAL.maxUpgradeStackSize.get(), MAX_COUNTED_UPGRADES);
+            // Every slot but parallel raises the per item cost
+            int pricedSlots = SluiceBlockEntity.UPGRADE_SLOTS - 1;
+            double itemCost = Math.min(Math.pow(SluiceConfig.GENERAL.exponentialCostBaseN.get(), maxCount * pricedSlots)
+                    * SluiceConfig.SLUICES.NETHERITE.costPerUse.get(), Integer.MAX_VALUE);
+            energyCapacity = (int) Math.min(itemCost * (1 + maxCount), Integer.MAX_VALUE);
+            energyCapacityGeneration = configGeneration;
+        }
+
+        return energyCapacity;
+    }
+
+    public boolean isStale() {
+        return this.generation != configGeneration;
+    }
+}
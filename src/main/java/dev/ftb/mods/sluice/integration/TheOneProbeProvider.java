@@ -55,9 +55,9 @@ public class TheOneProbeProvider implements IProbeInfoProvider, Function<ITheOne
                 );
             }
 
-            int progress = (entity.processed * 100) / entity.maxProcessed;
+            int progress = (int) (entity.getProgress(0F) * 100);
 
-            if (entity.processed != 0 || !stackInSlot.isEmpty()) {
+            if (!stackInSlot.isEmpty()) {
                 iProbeInfo.horizontal().item(stackInSlot).vertical().padding(0, 3).progress(progress, 100, iProbeInfo.defaultProgressStyle()
                         .suffix("%").width(78));
             }
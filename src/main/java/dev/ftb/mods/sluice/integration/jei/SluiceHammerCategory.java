@@ -2,6 +2,7 @@ package dev.ftb.mods.sluice.integration.jei;
 
 import dev.ftb.mods.sluice.FTBSluice;
 import dev.ftb.mods.sluice.recipe.HammerRecipe;
+import dev.ftb.mods.sluice.util.TextUtil;
 import mezz.jei.api.constants.VanillaTypes;
 import mezz.jei.api.gui.IRecipeLayout;
 import mezz.jei.api.gui.drawable.IDrawable;
@@ -9,9 +10,13 @@ import mezz.jei.api.gui.drawable.IDrawableStatic;
 import mezz.jei.api.helpers.IGuiHelper;
 import mezz.jei.api.ingredients.IIngredients;
 import mezz.jei.api.recipe.category.IRecipeCategory;
+import net.minecraft.ChatFormatting;
+import net.minecraft.network.chat.TextComponent;
+import net.minecraft.network.chat.TranslatableComponent;
 import net.minecraft.resources.ResourceLocation;
 
 import java.util.Arrays;
+import java.util.stream.Collectors;
 
 public class SluiceHammerCategory implements IRecipeCategory<HammerRecipe> {
     public static final ResourceLocation ID = new ResourceLocation(FTBSluice.MOD_ID, "hammers_jei");
@@ -51,7 +56,7 @@ public class SluiceHammerCategory implements IRecipeCategory<HammerRecipe> {
     @Override
     public void setIngredients(HammerRecipe hammerRecipe, IIngredients iIngredients) {
         iIngredients.setInputs(VanillaTypes.ITEM, Arrays.asList(hammerRecipe.ingredient.getItems()));
-        iIngredients.setOutputs(VanillaTypes.ITEM, hammerRecipe.results);
+        iIngredients.setOutputs(VanillaTypes.ITEM, hammerRecipe.results.stream().map(e -> e.item).collect(Collectors.toList()));
     }
 
     @Override
@@ -61,7 +66,15 @@ public class SluiceHammerCategory implements IRecipeCategory<HammerRecipe> {
 
         for (int i = 0; i < hammerRecipe.results.size(); i++) {
             recipeLayout.getItemStacks().init(1 + i, false, 27 + (i % 7 * 18), 4 + i / 7 * 18);
-            recipeLayout.getItemStacks().set(1 + i, hammerRecipe.results.get(i));
+            recipeLayout.getItemStacks().set(1 + i, hammerRecipe.results.get(i).item);
         }
+
+        recipeLayout.getItemStacks().addTooltipCallback((idx, input, stack, tooltip) -> {
+            if (!input && idx > 0 && hammerRecipe.results.get(idx - 1).weight < 1D) {
+                tooltip.add(new TranslatableComponent("ftbsluice.jei.chance",
+                        new TextComponent(Math.round(hammerRecipe.results.get(idx - 1).weight * 100) + "%").withStyle(TextUtil.COLOUR_HIGHLIGHT))
+                        .withStyle(ChatFormatting.GRAY));
+            }
+        });
     }
 }
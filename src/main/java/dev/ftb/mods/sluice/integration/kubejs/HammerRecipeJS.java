@@ -6,6 +6,7 @@ import com.google.gson.JsonObject;
 import dev.latvian.kubejs.item.ItemStackJS;
 import dev.latvian.kubejs.recipe.RecipeJS;
 import dev.latvian.kubejs.util.ListJS;
+import dev.latvian.kubejs.util.UtilsJS;
 
 public class HammerRecipeJS extends RecipeJS {
 
@@ -14,7 +15,14 @@ public class HammerRecipeJS extends RecipeJS {
 		this.inputItems.add(this.parseIngredientItem(args.get(0)));
 
 		for (Object o : ListJS.orSelf(args.get(1))) {
-			ItemStackJS i = this.parseResultItem(o);
+			ListJS l = ListJS.orSelf(o);
+
+			ItemStackJS i = this.parseResultItem(l.get(0));
+
+			if (l.size() >= 2) {
+				i = i.withChance(UtilsJS.parseDouble(l.get(1), 1));
+			}
+
 			this.outputItems.add(i);
 		}
 	}
@@ -25,7 +33,13 @@ public class HammerRecipeJS extends RecipeJS {
 
 		for (JsonElement e : this.json.get("results").getAsJsonArray()) {
 			JsonObject o = e.getAsJsonObject();
-			this.outputItems.add(this.parseResultItem(o));
+			ItemStackJS i = this.parseResultItem(o);
+
+			if (o.has("chance")) {
+				i = i.withChance(o.get("chance").getAsDouble());
+			}
+
+			this.outputItems.add(i);
 		}
 	}
 
@@ -37,6 +37,7 @@ public class SluiceModItems {
     public static final RegistryObject<Item> FORTUNE_UPGRADE = REGISTRY.register("sluice_fortune_upgrade", () -> new UpgradeItem(Upgrades.LUCK));
     public static final RegistryObject<Item> SPEED_UPGRADE = REGISTRY.register("sluice_speed_upgrade", () -> new UpgradeItem(Upgrades.SPEED));
     public static final RegistryObject<Item> CONSUMPTION_UPGRADE = REGISTRY.register("sluice_consumption_upgrade", () -> new UpgradeItem(Upgrades.CONSUMPTION));
+    public static final RegistryObject<Item> PARALLEL_UPGRADE = REGISTRY.register("sluice_parallel_upgrade", () -> new UpgradeItem(Upgrades.PARALLEL));
 
     // MISC
     public static final RegistryObject<Item> DUST = REGISTRY.register("dust", () -> new BlockItem(SluiceBlocks.DUST_BLOCK.get(), new Item.Properties().tab(FTBSluice.group)));
@@ -3,7 +3,8 @@ package dev.ftb.mods.sluice.item;
 public enum Upgrades {
     SPEED(5, "upgrade_speed"),
     LUCK(3, "upgrade_fortune"),
-    CONSUMPTION(5, "upgrade_fluid");
+    CONSUMPTION(5, "upgrade_fluid"),
+    PARALLEL(1, "upgrade_parallel");
 
     public int effectedChange;
     public String tooltip;
@@ -2,6 +2,7 @@ package dev.ftb.mods.sluice.loot;
 
 import com.google.gson.JsonObject;
 import dev.ftb.mods.sluice.recipe.FTBSluiceRecipes;
+import dev.ftb.mods.sluice.recipe.HammerDropTable;
 import dev.ftb.mods.sluice.tags.SluiceTags;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.entity.Entity;
@@ -16,7 +17,6 @@ import net.minecraftforge.common.loot.LootModifier;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class HammerModifier extends LootModifier {
     protected HammerModifier(LootItemCondition[] conditionsIn) {
@@ -30,16 +30,16 @@ public class HammerModifier extends LootModifier {
         Entity entity = context.getParamOrNull(LootContextParams.THIS_ENTITY);
         BlockState blockState = context.getParamOrNull(LootContextParams.BLOCK_STATE);
 
-        if (!(entity instanceof Player) || hammer == null || blockState == null || !SluiceTags.Items.HAMMERS.contains(hammer.getItem()) || !FTBSluiceRecipes.hammerable(blockState)) {
+        if (!(entity instanceof Player) || hammer == null || blockState == null || !SluiceTags.Items.HAMMERS.contains(hammer.getItem())) {
             return list;
         }
 
-        List<ItemStack> hammerDrops = FTBSluiceRecipes.getHammerDrops(entity.level, new ItemStack(blockState.getBlock()));
-        if (hammerDrops.size() > 0) {
-            return hammerDrops.stream().map(ItemStack::copy).collect(Collectors.toList());
+        HammerDropTable hammerDrops = FTBSluiceRecipes.getHammerDrops(entity.level, blockState);
+        if (hammerDrops.isEmpty()) {
+            return list;
         }
 
-        return list;
+        return hammerDrops.roll(context.getRandom());
     }
 
     public static class Serializer extends GlobalLootModifierSerializer<HammerModifier> {
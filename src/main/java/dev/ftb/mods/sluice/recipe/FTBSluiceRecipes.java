@@ -2,6 +2,8 @@ package dev.ftb.mods.sluice.recipe;
 
 import dev.ftb.mods.sluice.FTBSluice;
 import dev.ftb.mods.sluice.block.MeshType;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.core.Registry;
 import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.crafting.Ingredient;
@@ -10,14 +12,15 @@ import net.minecraft.world.item.crafting.RecipeSerializer;
 import net.minecraft.world.item.crafting.RecipeType;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.material.FlowingFluid;
 import net.minecraft.world.level.material.Fluid;
 import net.minecraftforge.fml.RegistryObject;
 import net.minecraftforge.registries.DeferredRegister;
 import net.minecraftforge.registries.ForgeRegistries;
-import org.apache.commons.lang3.tuple.Triple;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
 
 
 public class FTBSluiceRecipes {
@@ -28,46 +31,52 @@ public class FTBSluiceRecipes {
 
     public static final RegistryObject<RecipeSerializer<?>> HAMMER = REGISTRY.register("hammer", HammerRecipeSerializer::new);
     public static final RecipeType<HammerRecipe> HAMMER_TYPE = RecipeType.register(FTBSluice.MOD_ID + ":hammer");
-    public static final List<Ingredient> hammerableCache = new ArrayList<>();
 
-    private static final Map<Triple<Fluid, Item, MeshType>, SluiceRecipeInfo> sluiceCache = new HashMap<>();
+    // The integrated server and the client share this class, so each side gets its own snapshot. Snapshots are
+    // never modified once published, readers just grab the current reference.
+    private static volatile RecipeCache serverCache = RecipeCache.EMPTY;
+    private static volatile RecipeCache clientCache = RecipeCache.EMPTY;
 
-    // Ignores the fluid requirement to check for valid insert actions
-    private static final HashMap<MeshType, HashSet<Ingredient>> sluiceInputCache = new HashMap<>();
-
-    private static final Map<Item, List<ItemStack>> hammerCache = new HashMap<>();
-
-    public static void createSluiceCaches(RecipeManager recipeManager) {
-        List<SluiceRecipe> sluiceRecipes = recipeManager.getAllRecipesFor(SLUICE_TYPE);
-
-        // Mesh -> has -> Ingredients.
-        for (SluiceRecipe e : sluiceRecipes) {
-            for (MeshType a : e.meshes) {
-                sluiceInputCache.computeIfAbsent(a, (_0) -> new HashSet<>()).add(e.ingredient);
-            }
-        }
+    /**
+     * Packs the registry ids of the fluid and item along with the mesh into a single long so lookups
+     * don't have to allocate a key. Layout: mesh (8 bits) | fluid id (24 bits) | item id (32 bits).
+     * The fluid is expected to already be a source fluid.
+     */
+    static long sluiceKey(Fluid fluid, Item item, MeshType mesh) {
+        return ((long) mesh.ordinal() << 56)
+                | ((long) (Registry.FLUID.getId(fluid) & 0xFFFFFF) << 32)
+                | (Registry.ITEM.getId(item) & 0xFFFFFFFFL);
     }
 
-    public static void createHammerables(RecipeManager manager) {
-        hammerableCache.addAll(manager.getAllRecipesFor(HAMMER_TYPE).stream().map(e -> e.ingredient).collect(Collectors.toList()));
+    /**
+     * Flowing and source fluids are treated as the same fluid by recipes, so we always key on the source.
+     */
+    static Fluid sourceFluid(Fluid fluid) {
+        return fluid instanceof FlowingFluid ? ((FlowingFluid) fluid).getSource() : fluid;
     }
 
-    public static void refreshCaches(RecipeManager manager) {
-        clearCache();
-        createSluiceCaches(manager);
-        createHammerables(manager);
+    public static void refreshCaches(RecipeManager manager, boolean clientSide) {
+        setCache(RecipeCache.compile(manager), clientSide);
     }
 
-    public static void clearCache() {
-        sluiceCache.clear();
-        sluiceInputCache.clear();
+    /**
+     * Publishes a fully compiled cache for one side, see {@link dev.ftb.mods.sluice.util.RecipeReloader}
+     */
+    public static void setCache(RecipeCache newCache, boolean clientSide) {
+        if (clientSide) {
+            clientCache = newCache;
+        } else {
+            serverCache = newCache;
+        }
+    }
 
-        hammerCache.clear();
-        hammerableCache.clear();
+    public static RecipeCache getCache(@Nullable Level level) {
+        return level != null && level.isClientSide() ? clientCache : serverCache;
     }
 
     /**
-     * Runs through all sluice recipes to find matching mesh -> resulting items.
+     * Finds the compiled mesh -> resulting items for an input. Everything is built in {@link RecipeCache#compile(RecipeManager)}
+     * so this never has to look at the recipe manager.
      *
      * @param world level
      * @param mesh  the type of mesh for the sluice
@@ -75,67 +84,64 @@ public class FTBSluiceRecipes {
      * @return A list of items with the chances.
      */
     public static SluiceRecipeInfo getSluiceRecipes(Fluid fluid, Level world, MeshType mesh, ItemStack input) {
-        return sluiceCache.computeIfAbsent(Triple.of(fluid, input.getItem(), mesh), key -> {
-            List<ItemWithWeight> list = new ArrayList<>();
-
-            int max = -1;
-            int time = -1;
-            int mb = -1;
-            for (SluiceRecipe recipe : world.getRecipeManager().getRecipesFor(SLUICE_TYPE, NoInventory.INSTANCE, world)) {
-                if (recipe.meshes.contains(mesh) && recipe.ingredient.test(input) && fluid.isSame(recipe.fluid)) {
-                    // Only set based on the first min max we see.
-                    if (max == -1) {
-                        max = recipe.max;
-                    }
-
-                    if (time == -1) {
-                        time = recipe.time;
-                    }
-
-                    if (mb == -1) {
-                        mb = recipe.mb;
-                    }
-
-                    recipe.results.forEach(e -> list.add(new ItemWithWeight(e.item, e.weight)));
-                }
+        RecipeCache cache = getCache(world);
+        long key = sluiceKey(sourceFluid(fluid), input.getItem(), mesh);
+        SluiceRecipeInfo info = cache.sluiceRecipes.get(key);
+        if (info != null) {
+            return info;
+        }
+
+        List<SluiceRecipe> recipes = cache.sluiceRecipesToTest.get(key);
+        return recipes != null ? compileMatching(recipes, input) : SluiceRecipeInfo.EMPTY;
+    }
+
+    /**
+     * Only used for inputs covered by NBT sensitive ingredients, which are rare enough to compile on the spot.
+     */
+    private static SluiceRecipeInfo compileMatching(List<SluiceRecipe> recipes, ItemStack input) {
+        List<SluiceRecipe> matching = new ArrayList<>(recipes.size());
+        for (SluiceRecipe recipe : recipes) {
+            if (recipe.ingredient.test(input)) {
+                matching.add(recipe);
             }
+        }
 
-            return new SluiceRecipeInfo(list, max, time, mb);
-        });
+        return matching.isEmpty() ? SluiceRecipeInfo.EMPTY : RecipeCache.compileSluiceRecipe(matching);
     }
 
     /**
      * Checks that a given input has any result.
      */
     public static boolean itemHasSluiceResults(Fluid fluid, Level level, MeshType mesh, ItemStack input) {
-        return !getSluiceRecipes(fluid, level, mesh, input).getItems().isEmpty();
+        return !getSluiceRecipes(fluid, level, mesh, input).isEmpty();
     }
 
-    public static boolean itemIsSluiceInput(MeshType mesh, ItemStack input) {
-        if (!sluiceInputCache.containsKey(mesh)) {
-            return false;
+    public static boolean itemIsSluiceInput(Level level, MeshType mesh, ItemStack input) {
+        RecipeCache cache = getCache(level);
+        ReferenceOpenHashSet<Item> items = cache.sluiceInputs.get(mesh);
+        if (items != null && items.contains(input.getItem())) {
+            return true;
         }
 
-        return sluiceInputCache.get(mesh).stream().anyMatch(e -> e.test(input));
-    }
+        List<Ingredient> ingredients = cache.sluiceInputFallback.get(mesh);
+        if (ingredients == null) {
+            return false;
+        }
 
-    public static List<ItemStack> getHammerDrops(Level level, ItemStack input) {
-        return hammerCache.computeIfAbsent(input.getItem(), key -> {
-            List<ItemStack> drops = new ArrayList<>();
-            for (HammerRecipe recipe : level.getRecipeManager().getRecipesFor(HAMMER_TYPE, NoInventory.INSTANCE, level)) {
-                if (recipe.ingredient.test(input)) {
-                    recipe.results.forEach(e -> drops.add(e.copy()));
-                }
+        for (Ingredient ingredient : ingredients) {
+            if (ingredient.test(input)) {
+                return true;
             }
+        }
 
-            return drops;
-        });
+        return false;
     }
 
-    public static boolean hammerable(BlockState state) {
-        return hammerableCache.stream().anyMatch(e -> {
-            ItemStack stack = new ItemStack(state.getBlock());
-            return e.test(stack);
-        });
+    /**
+     * @return the compiled hammer drops for a block, roll them to get the actual drops
+     */
+    public static HammerDropTable getHammerDrops(Level level, BlockState state) {
+        HammerDropTable drops = getCache(level).hammerDrops.get(state.getBlock());
+        return drops != null ? drops : HammerDropTable.EMPTY;
     }
 }
@@ -0,0 +1,55 @@
+package dev.ftb.mods.sluice.recipe;
+
+import net.minecraft.world.item.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compiled, immutable hammer drops for a single block. Every result is rolled on its own against its chance, results
+ * with a chance of 1 always drop without touching the random. A result can hold more than a stack, it drops as a whole
+ * and is only split into stacks afterwards.
+ */
+public class HammerDropTable {
+    public static final HammerDropTable EMPTY = new HammerDropTable(Collections.emptyList());
+
+    private final ItemStack[] results;
+    private final float[] chances;
+
+    public HammerDropTable(List<ItemWithWeight> items) {
+        this.results = new ItemStack[items.size()];
+        this.chances = new float[items.size()];
+
+        for (int i = 0; i < items.size(); i++) {
+            this.results[i] = items.get(i).item.copy();
+            this.chances[i] = (float) items.get(i).weight;
+        }
+    }
+
+    /**
+     * @return fresh copies of the resulting items
+     */
+    public List<ItemStack> roll(Random random) {
+        List<ItemStack> drops = new ArrayList<>(this.results.length);
+        for (int i = 0; i < this.results.length; i++) {
+            if (this.chances[i] >= 1F || random.nextFloat() < this.chances[i]) {
+                ItemStack result = this.results[i];
+                int count = result.getCount();
+                while (count > 0) {
+                    ItemStack stack = result.copy();
+                    stack.setCount(Math.min(count, result.getMaxStackSize()));
+                    drops.add(stack);
+                    count -= stack.getCount();
+                }
+            }
+        }
+
+        return drops;
+    }
+
+    public boolean isEmpty() {
+        return this.results.length == 0;
+    }
+}
@@ -16,7 +16,7 @@ public class HammerRecipe implements Recipe<NoInventory> {
     private final ResourceLocation id;
     public String group;
     public Ingredient ingredient;
-    public List<ItemStack> results;
+    public List<ItemWithWeight> results;
 
     public HammerRecipe(ResourceLocation i, String g) {
         this.id = i;
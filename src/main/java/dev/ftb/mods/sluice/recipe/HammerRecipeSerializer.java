@@ -24,14 +24,10 @@ public class HammerRecipeSerializer extends ForgeRegistryEntry<RecipeSerializer<
 
         for (JsonElement e : json.get("results").getAsJsonArray()) {
             JsonObject o = e.getAsJsonObject();
-            // allow for stack sizes greater than 64 by splitting into multiple stacks
-            int i = GsonHelper.getAsInt(o, "count", 1);
-            while (i > 0) {
-                int j = Math.min(i, 64);
-                o.addProperty("count", j);
-                r.results.add(ShapedRecipe.itemFromJson(o));
-                i -= j;
-            }
+            // chance is rolled once per result, defaulting to always dropping. Counts above a stack are kept whole
+            // here and split up when dropped, see HammerDropTable#roll
+            double chance = GsonHelper.getAsDouble(o, "chance", 1D);
+            r.results.add(new ItemWithWeight(ShapedRecipe.itemFromJson(o), chance));
         }
 
         return r;
@@ -44,7 +40,10 @@ public class HammerRecipeSerializer extends ForgeRegistryEntry<RecipeSerializer<
         int w = buffer.readVarInt();
 
         for (int i = 0; i < w; i++) {
-            r.results.add(buffer.readItem());
+            // Item counts only go over the network as a byte
+            ItemStack stack = buffer.readItem();
+            stack.setCount(buffer.readVarInt());
+            r.results.add(new ItemWithWeight(stack, buffer.readDouble()));
         }
         return r;
     }
@@ -56,8 +55,12 @@ public class HammerRecipeSerializer extends ForgeRegistryEntry<RecipeSerializer<
 
         buffer.writeVarInt(r.results.size());
 
-        for (ItemStack i : r.results) {
-            buffer.writeItem(i);
+        for (ItemWithWeight i : r.results) {
+            ItemStack stack = i.item.copy();
+            stack.setCount(1);
+            buffer.writeItem(stack);
+            buffer.writeVarInt(i.item.getCount());
+            buffer.writeDouble(i.weight);
         }
     }
 }
@@ -0,0 +1,147 @@
+package dev.ftb.mods.sluice.recipe;
+
+import dev.ftb.mods.sluice.block.MeshType;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.crafting.Ingredient;
+import net.minecraft.world.item.crafting.RecipeManager;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.material.Fluid;
+import net.minecraftforge.registries.ForgeRegistries;
+
+import java.util.*;
+
+/**
+ * Everything we compile from the sluice and hammer recipes. A cache is built in one go, possibly off thread, and is
+ * never modified afterwards so it can be swapped in as a whole once it's ready.
+ */
+public class RecipeCache {
+    public static final RecipeCache EMPTY = new RecipeCache(new Long2ObjectOpenHashMap<>(), new Long2ObjectOpenHashMap<>(), new EnumMap<>(MeshType.class), new EnumMap<>(MeshType.class), new Reference2ObjectOpenHashMap<>());
+
+    // Packed (fluid, item, mesh) key, see FTBSluiceRecipes#sluiceKey
+    final Long2ObjectMap<SluiceRecipeInfo> sluiceRecipes;
+
+    // Keys reached by at least one NBT sensitive ingredient. The item alone doesn't decide which of these recipes
+    // match so they're kept as is and tested against the actual stack
+    final Long2ObjectMap<List<SluiceRecipe>> sluiceRecipesToTest;
+
+    // Ignores the fluid requirement to check for valid insert actions
+    final EnumMap<MeshType, ReferenceOpenHashSet<Item>> sluiceInputs;
+
+    // NBT sensitive (non simple) ingredients can't be answered by the item alone so they get tested the slow way
+    final EnumMap<MeshType, List<Ingredient>> sluiceInputFallback;
+
+    // Block -> every hammer result for it. Only blocks that can be hammered are in here
+    final Reference2ObjectMap<Block, HammerDropTable> hammerDrops;
+
+    private RecipeCache(Long2ObjectMap<SluiceRecipeInfo> sluiceRecipes, Long2ObjectMap<List<SluiceRecipe>> sluiceRecipesToTest, EnumMap<MeshType, ReferenceOpenHashSet<Item>> sluiceInputs, EnumMap<MeshType, List<Ingredient>> sluiceInputFallback, Reference2ObjectMap<Block, HammerDropTable> hammerDrops) {
+        this.sluiceRecipes = sluiceRecipes;
+        this.sluiceRecipesToTest = sluiceRecipesToTest;
+        this.sluiceInputs = sluiceInputs;
+        this.sluiceInputFallback = sluiceInputFallback;
+        this.hammerDrops = hammerDrops;
+    }
+
+    public static RecipeCache compile(RecipeManager manager) {
+        List<SluiceRecipe> sluiceRecipes = manager.getAllRecipesFor(FTBSluiceRecipes.SLUICE_TYPE);
+        EnumMap<MeshType, ReferenceOpenHashSet<Item>> sluiceInputs = new EnumMap<>(MeshType.class);
+        EnumMap<MeshType, List<Ingredient>> sluiceInputFallback = new EnumMap<>(MeshType.class);
+
+        // Mesh -> has -> Items.
+        for (SluiceRecipe e : sluiceRecipes) {
+            for (MeshType a : e.meshes) {
+                if (e.ingredient.isSimple()) {
+                    ReferenceOpenHashSet<Item> items = sluiceInputs.computeIfAbsent(a, (_0) -> new ReferenceOpenHashSet<>());
+                    for (ItemStack stack : e.ingredient.getItems()) {
+                        items.add(stack.getItem());
+                    }
+                } else {
+                    List<Ingredient> ingredients = sluiceInputFallback.computeIfAbsent(a, (_0) -> new ArrayList<>());
+                    if (!ingredients.contains(e.ingredient)) {
+                        ingredients.add(e.ingredient);
+                    }
+                }
+            }
+        }
+
+        // (Fluid, Item, Mesh) -> every recipe that matches it, in recipe manager order
+        Long2ObjectMap<List<SluiceRecipe>> recipesByKey = new Long2ObjectOpenHashMap<>();
+        LongSet nbtSensitiveKeys = new LongOpenHashSet();
+        for (SluiceRecipe recipe : sluiceRecipes) {
+            Fluid fluid = FTBSluiceRecipes.sourceFluid(recipe.fluid);
+            for (ItemStack stack : recipe.ingredient.getItems()) {
+                for (MeshType mesh : recipe.meshes) {
+                    long key = FTBSluiceRecipes.sluiceKey(fluid, stack.getItem(), mesh);
+                    List<SluiceRecipe> recipes = recipesByKey.computeIfAbsent(key, k -> new ArrayList<>());
+                    if (!recipe.ingredient.isSimple()) {
+                        nbtSensitiveKeys.add(key);
+                    }
+
+                    // Ingredients can list the same item more than once (tags + items), only count the recipe once
+                    if (recipes.isEmpty() || recipes.get(recipes.size() - 1) != recipe) {
+                        recipes.add(recipe);
+                    }
+                }
+            }
+        }
+
+        Long2ObjectMap<SluiceRecipeInfo> compiled = new Long2ObjectOpenHashMap<>(recipesByKey.size());
+        Long2ObjectMap<List<SluiceRecipe>> toTest = new Long2ObjectOpenHashMap<>(nbtSensitiveKeys.size());
+        for (Long2ObjectMap.Entry<List<SluiceRecipe>> entry : recipesByKey.long2ObjectEntrySet()) {
+            if (nbtSensitiveKeys.contains(entry.getLongKey())) {
+                toTest.put(entry.getLongKey(), entry.getValue());
+            } else {
+                compiled.put(entry.getLongKey(), compileSluiceRecipe(entry.getValue()));
+            }
+        }
+
+        // Item -> every hammer result for it, in recipe manager order
+        Map<Item, List<ItemWithWeight>> hammerDropsByItem = new HashMap<>();
+        for (HammerRecipe recipe : manager.getAllRecipesFor(FTBSluiceRecipes.HAMMER_TYPE)) {
+            Set<Item> seen = new ReferenceOpenHashSet<>();
+            for (ItemStack stack : recipe.ingredient.getItems()) {
+                // Broken blocks never carry NBT, so NBT sensitive ingredients only count if a plain stack still matches
+                if (seen.add(stack.getItem()) && (recipe.ingredient.isSimple() || recipe.ingredient.test(new ItemStack(stack.getItem())))) {
+                    hammerDropsByItem.computeIfAbsent(stack.getItem(), key -> new ArrayList<>()).addAll(recipe.results);
+                }
+            }
+        }
+
+        // Hammers work on the broken block, which matches on its item form. Resolve that once here so breaking
+        // a block is a single lookup
+        Reference2ObjectMap<Block, HammerDropTable> hammerDrops = new Reference2ObjectOpenHashMap<>();
+        if (!hammerDropsByItem.isEmpty()) {
+            Map<Item, HammerDropTable> tables = new HashMap<>();
+            for (Block block : ForgeRegistries.BLOCKS) {
+                List<ItemWithWeight> drops = hammerDropsByItem.get(block.asItem());
+                if (drops != null) {
+                    hammerDrops.put(block, tables.computeIfAbsent(block.asItem(), item -> new HammerDropTable(drops)));
+                }
+            }
+        }
+
+        return new RecipeCache(compiled, toTest, sluiceInputs, sluiceInputFallback, hammerDrops);
+    }
+
+    /**
+     * Merges all the recipes matching a single (fluid, item, mesh) combination into one recipe info.
+     * The first recipe we see decides the max drops, processing time and fluid usage.
+     */
+    static SluiceRecipeInfo compileSluiceRecipe(List<SluiceRecipe> recipes) {
+        List<ItemWithWeight> list = new ArrayList<>();
+
+        SluiceRecipe first = recipes.get(0);
+        for (SluiceRecipe recipe : recipes) {
+            recipe.results.forEach(e -> list.add(new ItemWithWeight(e.item, e.weight)));
+        }
+
+        return new SluiceRecipeInfo(list, first.max, first.time, first.mb);
+    }
+}
@@ -1,18 +1,176 @@
 package dev.ftb.mods.sluice.recipe;
 
+import dev.ftb.mods.sluice.SluiceConfig;
+import dev.ftb.mods.sluice.item.Upgrades;
+import dev.ftb.mods.sluice.util.RandomUtil;
+import net.minecraft.util.Mth;
+import net.minecraft.world.item.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
+/**
+ * Compiled, immutable drop table for a single (fluid, item, mesh) combination. Results and their chances are
+ * kept in parallel arrays so rolling never has to touch (or mutate) anything shared.
+ */
 public class SluiceRecipeInfo {
+    public static final SluiceRecipeInfo EMPTY = new SluiceRecipeInfo(Collections.emptyList(), -1, -1, -1);
+
     private final List<ItemWithWeight> items;
+    private final ItemStack[] results;
+    private final float[] chances;
     private final int maxDrops;
     private final int processingTime;
     private final int fluidUsed;
 
+    // Clamped chances per luck level, only ever touched from the server thread. Level 0 is the plain chances
+    private float[][] chancesByLuck;
+
     public SluiceRecipeInfo(List<ItemWithWeight> items, int maxDrops, int processingTime, int fluidUsed) {
-        this.items = items;
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+        this.results = new ItemStack[items.size()];
+        this.chances = new float[items.size()];
         this.maxDrops = maxDrops;
         this.processingTime = processingTime;
         this.fluidUsed = fluidUsed;
+
+        for (int i = 0; i < items.size(); i++) {
+            this.results[i] = items.get(i).item.copy();
+            this.chances[i] = (float) Mth.clamp(items.get(i).weight, 0, 1);
+        }
+    }
+
+    /**
+     * Rolls every result once against its chance. If more results hit than {@link #getMaxDrops()} allows, a uniformly
+     * random subset of the hits is kept (reservoir sampling), which is the same as shuffling the results and keeping
+     * the first hits like we used to.
+     *
+     * @param random the random source to roll with
+     * @param luck   amount of luck upgrades, each one adds a flat bonus to every chance
+     * @return fresh copies of the resulting items
+     */
+    public List<ItemStack> roll(Random random, int luck) {
+        if (this.maxDrops <= 0 || this.results.length == 0) {
+            return new ArrayList<>();
+        }
+
+        int[] picked = new int[Math.min(this.maxDrops, this.results.length)];
+        int kept = this.pick(random, this.getChances(luck), picked);
+
+        List<ItemStack> outputResults = new ArrayList<>(kept);
+        for (int i = 0; i < kept; i++) {
+            outputResults.add(this.results[picked[i]].copy());
+        }
+
+        return outputResults;
+    }
+
+    /**
+     * Resolves {@code cycles} rolls in one go and returns the combined drops, merged per result and split into
+     * stacks no bigger than their max stack size.
+     * <p>
+     * When the max drops cap can never be reached every result is independent, so each one is a single binomial
+     * sample and this is O(results) no matter how many cycles are asked for. When the cap can kick in the results
+     * aren't independent anymore, so each cycle is picked separately (still without allocating any stacks).
+     */
+    public List<ItemStack> rollBatch(Random random, int luck, int cycles) {
+        List<ItemStack> outputResults = new ArrayList<>();
+        if (cycles <= 0 || this.maxDrops <= 0 || this.results.length == 0) {
+            return outputResults;
+        }
+
+        float[] chances = this.getChances(luck);
+        int[] counts = new int[this.results.length];
+        if (this.maxDrops >= this.results.length) {
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = RandomUtil.binomial(random, cycles, chances[i]);
+            }
+        } else {
+            int[] picked = new int[this.maxDrops];
+            for (int cycle = 0; cycle < cycles; cycle++) {
+                int kept = this.pick(random, chances, picked);
+                for (int i = 0; i < kept; i++) {
+                    counts[picked[i]]++;
+                }
+            }
+        }
+
+        for (int i = 0; i < counts.length; i++) {
+            long total = (long) counts[i] * this.results[i].getCount();
+            int maxStackSize = this.results[i].getMaxStackSize();
+            while (total > 0) {
+                int size = (int) Math.min(total, maxStackSize);
+                ItemStack stack = this.results[i].copy();
+                stack.setCount(size);
+                outputResults.add(stack);
+                total -= size;
+            }
+        }
+
+        return outputResults;
+    }
+
+    /**
+     * Rolls every result against its chance and writes the indexes of the kept hits into {@code picked}.
+     *
+     * @return the amount of indexes written
+     */
+    private int pick(Random random, float[] chances, int[] picked) {
+        int kept = 0;
+        int hits = 0;
+        for (int i = 0; i < chances.length; i++) {
+            if (random.nextFloat() > chances[i]) {
+                continue;
+            }
+
+            hits++;
+            if (kept < picked.length) {
+                picked[kept++] = i;
+            } else {
+                int slot = random.nextInt(hits);
+                if (slot < picked.length) {
+                    picked[slot] = i;
+                }
+            }
+        }
+
+        return kept;
+    }
+
+    /**
+     * Luck can only ever be one of {@code maxUpgradeStackSize + 1} values, so the clamped chances are computed
+     * once per level and reused for every following roll.
+     */
+    private float[] getChances(int luck) {
+        if (luck <= 0) {
+            return this.chances;
+        }
+
+        if (this.chancesByLuck == null) {
+            this.chancesByLuck = new float[SluiceConfig.GENERAL.maxUpgradeStackSize.get() + 1][];
+        }
+
+        if (luck < this.chancesByLuck.length && this.chancesByLuck[luck] != null) {
+            return this.chancesByLuck[luck];
+        }
+
+        double bonus = (Upgrades.LUCK.effectedChange * luck) / 100D;
+        float[] chances = new float[this.results.length];
+        for (int i = 0; i < chances.length; i++) {
+            chances[i] = (float) Mth.clamp(this.items.get(i).weight + bonus, 0, 1);
+        }
+
+        if (luck < this.chancesByLuck.length) {
+            this.chancesByLuck[luck] = chances;
+        }
+
+        return chances;
+    }
+
+    public boolean isEmpty() {
+        return this.results.length == 0;
     }
 
     public List<ItemWithWeight> getItems() {
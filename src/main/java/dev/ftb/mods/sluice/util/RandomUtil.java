@@ -0,0 +1,58 @@
+package dev.ftb.mods.sluice.util;
+
+import net.minecraft.util.Mth;
+
+import java.util.Random;
+
+public class RandomUtil {
+
+    /**
+     * Samples how many of {@code trials} independent rolls with a {@code chance} of success hit. Small cases are rolled
+     * one by one, cases with few expected hits skip ahead between hits (geometric gaps), and anything bigger uses a
+     * normal approximation which is plenty accurate for drop counts.
+     */
+    public static int binomial(Random random, int trials, double chance) {
+        if (trials <= 0 || chance <= 0) {
+            return 0;
+        }
+
+        if (chance >= 1) {
+            return trials;
+        }
+
+        // Keep the expected amount of hits small for the exact methods
+        if (chance > 0.5D) {
+            return trials - binomial(random, trials, 1 - chance);
+        }
+
+        if (trials <= 16) {
+            int hits = 0;
+            for (int i = 0; i < trials; i++) {
+                if (random.nextDouble() < chance) {
+                    hits++;
+                }
+            }
+
+            return hits;
+        }
+
+        double mean = trials * chance;
+        if (mean < 16) {
+            double logMiss = Math.log(1 - chance);
+            int hits = 0;
+            long trial = 0;
+            while (true) {
+                // 1 - nextDouble is in (0, 1] so the log is always finite
+                trial += (long) (Math.log(1 - random.nextDouble()) / logMiss) + 1;
+                if (trial > trials) {
+                    return hits;
+                }
+
+                hits++;
+            }
+        }
+
+        double deviation = Math.sqrt(mean * (1 - chance));
+        return Mth.clamp((int) Math.round(mean + deviation * random.nextGaussian()), 0, trials);
+    }
+}
@@ -1,11 +1,24 @@
 package dev.ftb.mods.sluice.util;
 
 import dev.ftb.mods.sluice.recipe.FTBSluiceRecipes;
+import dev.ftb.mods.sluice.recipe.RecipeCache;
 import net.minecraft.server.ServerResources;
+import net.minecraft.server.packs.resources.PreparableReloadListener;
 import net.minecraft.server.packs.resources.ResourceManager;
-import net.minecraft.server.packs.resources.ResourceManagerReloadListener;
+import net.minecraft.util.Unit;
+import net.minecraft.util.profiling.ProfilerFiller;
 
-public class RecipeReloader implements ResourceManagerReloadListener {
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Compiles the recipe caches on the background executor and only swaps the finished cache in on the server thread.
+ * <p>
+ * Recipes are only parsed in the recipe manager's apply stage, so there's nothing to compile before the barrier. The
+ * barrier only releases once every listener registered before us (the recipe manager included) has fully applied,
+ * so we compile right after it, still off thread.
+ */
+public class RecipeReloader implements PreparableReloadListener {
 
     private final ServerResources res;
 
@@ -14,7 +27,9 @@ public class RecipeReloader implements ResourceManagerReloadListener {
     }
 
     @Override
-    public void onResourceManagerReload(ResourceManager rm) {
-        FTBSluiceRecipes.refreshCaches(res.getRecipeManager());
+    public CompletableFuture<Void> reload(PreparationBarrier barrier, ResourceManager rm, ProfilerFiller prepareProfiler, ProfilerFiller applyProfiler, Executor backgroundExecutor, Executor gameExecutor) {
+        return barrier.wait(Unit.INSTANCE)
+                .thenApplyAsync(unit -> RecipeCache.compile(this.res.getRecipeManager()), backgroundExecutor)
+                .thenAcceptAsync(cache -> FTBSluiceRecipes.setCache(cache, false), gameExecutor);
     }
 }